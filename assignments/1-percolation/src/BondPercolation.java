@@ -0,0 +1,253 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac BondPercolation.java
+ *  Execution:     java BondPercolation
+ *
+ *  Bond percolation on an n-by-n square grid.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * Implements bond percolation test for n-by-n grid structure:
+ * all sites are present, bonds between neighbor sites are opened.
+ * Bonds have dense ids, horizontal ones first:
+ *   (row, col) - (row, col + 1) is  row * (n - 1) + col
+ *   (row, col) - (row + 1, col) is  n * (n - 1) + row * n + col
+ * with 0-based row and col.
+ */
+public class BondPercolation {
+
+    private static final int TOP_CONNECTED = PackedUnionFind.TOP_CONNECTED;
+    private static final int BOTTOM_CONNECTED = PackedUnionFind.BOTTOM_CONNECTED;
+    private static final int PERCOLATED = PackedUnionFind.PERCOLATED;
+
+    private final int n;
+
+    private final int horizontalBonds;
+
+    private int numberOfOpenBonds;
+
+    // one bit per bond
+    private final long[] open;
+
+    private final PackedUnionFind sites;
+
+    private boolean percolates;
+
+    /**
+     * Creates n-by-n grid, with all bonds closed.
+     * @param n
+     */
+    public BondPercolation(int n) {
+        if (n < 2) {
+            throw new IllegalArgumentException("n must be greater than 1");
+        }
+
+        if ((long) n * n > PackedUnionFind.MAX_ELEMENTS) {
+            throw new IllegalArgumentException("n is too large");
+        }
+
+        this.n = n;
+        horizontalBonds = n * (n - 1);
+        open = new long[(2 * horizontalBonds + Long.SIZE - 1) / Long.SIZE];
+        sites = new PackedUnionFind(n * n);
+
+        reset();
+    }
+
+    /**
+     * Closes all bonds again, reusing the grid arrays.
+     */
+    public void reset() {
+        Arrays.fill(open, 0);
+        sites.clear();
+        int bottom = n * n - n;
+        for (int siteId = 0; siteId < n * n; siteId++) {
+            int flags = 0;
+            if (siteId < n) {
+                flags = TOP_CONNECTED;
+            }
+            if (siteId >= bottom) {
+                flags = flags | BOTTOM_CONNECTED;
+            }
+            sites.add(siteId, flags);
+        }
+
+        numberOfOpenBonds = 0;
+        percolates = false;
+    }
+
+    /**
+     * Get id of the bond between (row, col) and (row, col + 1).
+     */
+    public int horizontalBond(int row, int col) {
+        validatePosition(row, col);
+        if (col == n) {
+            throw new IllegalArgumentException();
+        }
+
+        return (row - 1) * (n - 1) + (col - 1);
+    }
+
+    /**
+     * Get id of the bond between (row, col) and (row + 1, col).
+     */
+    public int verticalBond(int row, int col) {
+        validatePosition(row, col);
+        if (row == n) {
+            throw new IllegalArgumentException();
+        }
+
+        return horizontalBonds + (row - 1) * n + (col - 1);
+    }
+
+    /**
+     * Get number of bonds of the grid.
+     */
+    public int numberOfBonds() {
+        return 2 * horizontalBonds;
+    }
+
+    /**
+     * Open bond if it is not open already.
+     */
+    public void open(int bondId) {
+        validateBond(bondId);
+
+        openBond(bondId);
+    }
+
+    /**
+     * Opens bond skipping id validation.
+     */
+    void openBond(int bondId) {
+        long mask = 1L << bondId;
+        int word = bondId >>> 6;
+        if ((open[word] & mask) != 0) {
+            return;
+        }
+
+        open[word] |= mask;
+        numberOfOpenBonds++;
+
+        int p;
+        int q;
+        if (bondId < horizontalBonds) {
+            // bondId = row * (n - 1) + col, siteId = row * n + col
+            p = bondId + bondId / (n - 1);
+            q = p + 1;
+        } else {
+            p = bondId - horizontalBonds;
+            q = p + n;
+        }
+
+        int root = sites.union(sites.find(p), q);
+
+        if (!percolates) {
+            percolates = sites.flags(root) == PERCOLATED;
+        }
+    }
+
+    /**
+     * Examines if bond is open.
+     */
+    public boolean isOpen(int bondId) {
+        validateBond(bondId);
+
+        return (open[bondId >>> 6] & (1L << bondId)) != 0;
+    }
+
+    /**
+     * Examines if site is connected to the top row by open bonds.
+     */
+    public boolean isFull(int row, int col) {
+        validatePosition(row, col);
+
+        int siteId = (row - 1) * n + (col - 1);
+        return (sites.flags(sites.find(siteId)) & TOP_CONNECTED) == TOP_CONNECTED;
+    }
+
+    /**
+     * Get number of open bonds
+     */
+    public int numberOfOpenBonds() {
+        return numberOfOpenBonds;
+    }
+
+    /**
+     * Examines if the system percolates.
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private void validatePosition(int row, int col) {
+        if (row <= 0 || row > n) {
+            throw new IllegalArgumentException();
+        }
+        if (col <= 0 || col > n) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private void validateBond(int bondId) {
+        if (bondId < 0 || bondId >= 2 * horizontalBonds) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // unit tests
+    public static void main(String[] args) {
+        BondPercolation p = new BondPercolation(2);
+        StdOut.printf("2x2 has 4 bonds %s\n", p.numberOfBonds() == 4 ? "OK" : "FAIL");
+        StdOut.printf("2x2 does not percolate %s\n", !p.percolates() ? "OK" : "FAIL");
+        p.open(p.horizontalBond(1, 1));
+        p.open(p.horizontalBond(2, 1));
+        StdOut.printf("horizontal bonds do not percolate %s\n", !p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("top row is full %s\n", p.isFull(1, 2) ? "OK" : "FAIL");
+        StdOut.printf("bottom row is not full %s\n", !p.isFull(2, 1) ? "OK" : "FAIL");
+        p.open(p.verticalBond(1, 2));
+        StdOut.printf("vertical bond percolates %s\n", p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("bottom row is full %s\n", p.isFull(2, 1) ? "OK" : "FAIL");
+        p.open(p.verticalBond(1, 2));
+        StdOut.printf("reopen is ignored %s\n", p.numberOfOpenBonds() == 3 ? "OK" : "FAIL");
+
+        p.reset();
+        StdOut.printf("reset closes bonds %s\n",
+                !p.percolates() && p.numberOfOpenBonds() == 0 && !p.isOpen(p.verticalBond(1, 2)) ? "OK" : "FAIL");
+
+        // bond ids are dense and distinct
+        p = new BondPercolation(5);
+        boolean[] seen = new boolean[p.numberOfBonds()];
+        boolean dense = true;
+        for (int row = 1; row <= 5; row++) {
+            for (int col = 1; col <= 5; col++) {
+                if (col < 5) {
+                    dense = dense && !seen[p.horizontalBond(row, col)];
+                    seen[p.horizontalBond(row, col)] = true;
+                }
+                if (row < 5) {
+                    dense = dense && !seen[p.verticalBond(row, col)];
+                    seen[p.verticalBond(row, col)] = true;
+                }
+            }
+        }
+        for (boolean bond : seen) {
+            dense = dense && bond;
+        }
+        StdOut.printf("bond ids are dense %s\n", dense ? "OK" : "FAIL");
+
+        // vertical line in the middle column
+        for (int row = 1; row < 5; row++) {
+            p.open(p.verticalBond(row, 3));
+        }
+        StdOut.printf("column percolates %s\n", p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("side column is not full %s\n", !p.isFull(3, 1) ? "OK" : "FAIL");
+    }
+}
@@ -0,0 +1,126 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac BondPercolationStats.java
+ *  Execution:     java BondPercolationStats 200 1000 42 8
+ *
+ *  Bond percolation threshold estimate on an n-by-n grid.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdStats;
+
+import java.util.SplittableRandom;
+
+/**
+ * Provides bond percolation statistics tests on NxN grid structure
+ */
+public final class BondPercolationStats {
+
+    private final double mean;
+    private final double stddev;
+    private final double confidenceLo;
+    private final double confidenceHi;
+
+    /**
+     * Performs trials independent experiments on an n-by-n grid using a fork-join pool.
+     * Results for a given seed do not depend on the number of threads.
+     * @param n grid size
+     * @param trials number of experiments
+     * @param seed master seed
+     * @param threads parallelism level of the pool
+     */
+    public BondPercolationStats(int n, int trials, long seed, int threads) {
+        if (n < 2) {
+            throw new IllegalArgumentException("n must be greater than 1");
+        }
+
+        double[] thresholds = ParallelTrials.run(trials, seed, threads,
+                () -> new Worker(n), BondPercolationStats::experiment);
+
+        mean = StdStats.mean(thresholds);
+        stddev = StdStats.stddev(thresholds);
+
+        double d = 1.96 * stddev / Math.sqrt(trials);
+        confidenceLo = mean - d;
+        confidenceHi = mean + d;
+    }
+
+    // sample mean of percolation threshold
+    public double mean() {
+        return mean;
+    }
+
+    // sample standard deviation of percolation threshold
+    public double stddev() {
+        return stddev;
+    }
+
+    // low endpoint of 95% confidence interval
+    public double confidenceLo() {
+        return confidenceLo;
+    }
+
+    // high endpoint of 95% confidence interval
+    public double confidenceHi() {
+        return confidenceHi;
+    }
+
+    // opens bonds in random order until the system percolates,
+    // generating the permutation incrementally (one Fisher-Yates step per bond)
+    private static double experiment(Worker worker, SplittableRandom random) {
+        BondPercolation p = worker.grid;
+        int[] order = worker.order;
+        int bonds = order.length;
+
+        p.reset();
+        for (int i = 0; i < bonds; i++) {
+            order[i] = i;
+        }
+
+        int k = 0;
+        do {
+            int j = k + random.nextInt(bonds - k);
+            int bondId = order[j];
+            order[j] = order[k];
+            order[k] = bondId;
+            k++;
+            p.openBond(bondId);
+        } while (!p.percolates());
+
+        return (double) p.numberOfOpenBonds() / bonds;
+    }
+
+    // per-thread experiment state
+    private static final class Worker {
+        private final BondPercolation grid;
+        private final int[] order;
+
+        Worker(int n) {
+            grid = new BondPercolation(n);
+            order = new int[grid.numberOfBonds()];
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            StdOut.println("Two arguments of integer type expected");
+            return;
+        }
+
+        int n = Integer.parseInt(args[0]);
+        int t = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int threads = args.length > 3
+                ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+
+        BondPercolationStats stats = new BondPercolationStats(n, t, seed, threads);
+        StdOut.printf("mean                    = %.16f\n", stats.mean());
+        StdOut.printf("stdev                   = %.16f\n", stats.stddev());
+        StdOut.printf("95%% confidence interval = [%.16f, %.16f]\n",
+                stats.confidenceLo(), stats.confidenceHi());
+    }
+}
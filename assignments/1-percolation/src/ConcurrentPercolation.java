@@ -0,0 +1,251 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac ConcurrentPercolation.java
+ *  Execution:     java ConcurrentPercolation
+ *
+ *  Percolation for one opening thread and any number of query threads.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Percolation whose queries do not block the thread that opens sites.
+ * Writes take the write lock of a StampedLock; queries are optimistic reads
+ * (a seqlock): they run on the live grid without taking any lock and are retried
+ * if a write overlapped them, so every answer is the one of a complete grid state.
+ * A query never takes the read lock, which would make open() wait for it;
+ * after OPTIMISTIC_READS overlapped attempts it yields between retries,
+ * so the writer gets the processor to finish its write.
+ * Queries never modify the grid, which is why they use a union-find lookup
+ * without path halving, bounded in length because a read that overlaps
+ * a write may see links of two states.
+ */
+public class ConcurrentPercolation {
+
+    // optimistic attempts of a query before it yields between retries
+    private static final int OPTIMISTIC_READS = 2;
+
+    private final Percolation grid;
+
+    private final StampedLock lock = new StampedLock();
+
+    // copies of the grid counters, written under the write lock
+    private volatile int numberOfOpenSites;
+    private volatile boolean percolates;
+
+    /**
+     * Creates n-by-n grid, with all sites initially blocked.
+     * @param n
+     */
+    public ConcurrentPercolation(int n) {
+        grid = new Percolation(n);
+    }
+
+    /**
+     * Opens site (row, col) if it is not open already.
+     */
+    public void open(int row, int col) {
+        long stamp = lock.writeLock();
+        try {
+            grid.open(row, col);
+            numberOfOpenSites = grid.numberOfOpenSites();
+            percolates = grid.percolates();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Blocks all sites again.
+     */
+    public void reset() {
+        long stamp = lock.writeLock();
+        try {
+            grid.reset();
+            numberOfOpenSites = 0;
+            percolates = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Examines if site is open.
+     */
+    public boolean isOpen(int row, int col) {
+        for (int attempt = 0; ; attempt++) {
+            if (attempt >= OPTIMISTIC_READS) {
+                Thread.yield();
+            }
+            long stamp = lock.tryOptimisticRead();
+            boolean open = grid.isOpen(row, col);
+            if (lock.validate(stamp)) {
+                return open;
+            }
+        }
+    }
+
+    /**
+     * Examines if site is full.
+     */
+    public boolean isFull(int row, int col) {
+        for (int attempt = 0; ; attempt++) {
+            if (attempt >= OPTIMISTIC_READS) {
+                Thread.yield();
+            }
+            long stamp = lock.tryOptimisticRead();
+            boolean full = grid.isFullReadOnly(row, col);
+            if (lock.validate(stamp)) {
+                return full;
+            }
+        }
+    }
+
+    /**
+     * Get number of open sites
+     */
+    public int numberOfOpenSites() {
+        return numberOfOpenSites;
+    }
+
+    /**
+     * Examines if the system percolates.
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // unit tests
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentPercolation p = new ConcurrentPercolation(3);
+        p.open(1, 1);
+        p.open(2, 1);
+        StdOut.printf("open site is open %s\n", p.isOpen(2, 1) ? "OK" : "FAIL");
+        StdOut.printf("connected site is full %s\n", p.isFull(2, 1) ? "OK" : "FAIL");
+        StdOut.printf("blocked site is not full %s\n", !p.isFull(3, 1) ? "OK" : "FAIL");
+        p.open(3, 1);
+        StdOut.printf("column percolates %s\n", p.percolates() && p.numberOfOpenSites() == 3 ? "OK" : "FAIL");
+        p.reset();
+        StdOut.printf("reset blocks sites %s\n", !p.isOpen(1, 1) && !p.percolates() ? "OK" : "FAIL");
+
+        boolean thrown = false;
+        try {
+            p.isFull(0, 1);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        StdOut.printf("invalid site is rejected %s\n", thrown ? "OK" : "FAIL");
+
+        // a reader polls the grid while a writer opens it; full sites and percolation never go back,
+        // and a full site is always open
+        int n = 128;
+        ConcurrentPercolation shared = new ConcurrentPercolation(n);
+        Percolation expected = new Percolation(n);
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(15);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        long[] polls = new long[1];
+        Thread reader = new Thread(() -> {
+            boolean[] seenFull = new boolean[n * n];
+            boolean seenPercolates = false;
+            while (!done.get()) {
+                for (int siteId = 0; siteId < n * n; siteId += 7) {
+                    int row = siteId / n + 1;
+                    int col = siteId % n + 1;
+                    boolean full = shared.isFull(row, col);
+                    if (seenFull[siteId] && !full || full && !shared.isOpen(row, col)) {
+                        consistent.set(false);
+                    }
+                    seenFull[siteId] = full;
+                    polls[0]++;
+                }
+                if (seenPercolates && !shared.percolates()) {
+                    consistent.set(false);
+                }
+                seenPercolates = shared.percolates();
+            }
+        });
+        reader.start();
+        for (int siteId : order) {
+            shared.open(siteId / n + 1, siteId % n + 1);
+            expected.open(siteId / n + 1, siteId % n + 1);
+            if (expected.numberOfOpenSites() == n * n / 2) {
+                // give the reader time to poll a half open grid
+                Thread.sleep(20);
+            }
+        }
+        done.set(true);
+        reader.join();
+        StdOut.printf("concurrent reads are monotone %s\n", consistent.get() && polls[0] > 0 ? "OK" : "FAIL");
+
+        boolean same = shared.percolates() == expected.percolates();
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                same = same && shared.isFull(row, col) == expected.isFull(row, col);
+            }
+        }
+        StdOut.printf("same as Percolation %s\n", same ? "OK" : "FAIL");
+        StdOut.printf("reads across resets return %s\n", readsAcrossResets(64, 200) ? "OK" : "FAIL");
+    }
+
+    // a reader polls the grid while a writer fills it up to percolation and resets it again and again,
+    // so reads overlap clears of the union-find; every read must return, and the top row
+    // is full exactly where it is open once the writer has stopped
+    private static boolean readsAcrossResets(int n, int rounds) throws InterruptedException {
+        ConcurrentPercolation shared = new ConcurrentPercolation(n);
+        AtomicBoolean done = new AtomicBoolean();
+        long[] polls = new long[1];
+        Thread reader = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(16);
+            while (!done.get()) {
+                int row = 1 + random.nextInt(n);
+                int col = 1 + random.nextInt(n);
+                shared.isFull(row, col);
+                shared.isOpen(row, col);
+                polls[0]++;
+            }
+        });
+        // a reader stuck in a loop must not keep the tests from exiting
+        reader.setDaemon(true);
+        reader.start();
+
+        SplittableRandom random = new SplittableRandom(17);
+        for (int round = 0; round < rounds; round++) {
+            shared.reset();
+            while (!shared.percolates()) {
+                shared.open(1 + random.nextInt(n), 1 + random.nextInt(n));
+            }
+        }
+        done.set(true);
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+        if (reader.isAlive() || polls[0] == 0) {
+            return false;
+        }
+
+        for (int col = 1; col <= n; col++) {
+            if (shared.isFull(1, col) != shared.isOpen(1, col)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
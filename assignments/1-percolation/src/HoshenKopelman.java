@@ -0,0 +1,368 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac HoshenKopelman.java
+ *  Execution:     java HoshenKopelman
+ *                 java HoshenKopelman in/input10.txt
+ *                 java HoshenKopelman -rows grid.txt
+ *
+ *  Labels clusters of a static n-by-n grid fed one row at a time.
+ *  Site list files (in/*.txt) have the format of PercolationVisualizer.
+ *  Row files start with n followed by n lines of n characters,
+ *  '1' for an open site and anything else for a blocked one.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Hoshen-Kopelman cluster labelling of a grid streamed row by row.
+ * Only the labels of the previous and the current row are kept, plus a union-find
+ * over those labels; clusters that do not reach the current row are finished and
+ * counted, so memory is O(n) for any number of rows.
+ */
+public class HoshenKopelman {
+
+    private static final int TOP_CONNECTED = 1;
+    private static final int BOTTOM_CONNECTED = 2;
+    private static final int PERCOLATED = TOP_CONNECTED | BOTTOM_CONNECTED;
+
+    private static final int BLOCKED = -1;
+
+    private final int n;
+
+    private int rows;
+
+    // labels of the previous row, dense ids of live clusters or BLOCKED
+    private int[] previous;
+    private int[] current;
+    private int live;
+
+    // union-find over live labels of the previous row followed by new labels of the current row;
+    // at most ceil(n / 2) clusters can cross a row, so 2n entries are enough
+    private final int[] parent;
+    private final long[] size;
+    private final int[] flags;
+    private final int[] dense;
+    private final long[] liveSize;
+    private final int[] liveFlags;
+
+    private long numberOfClusters;
+    private long largestClusterSize;
+    private final TreeMap<Long, Long> clusterSizes = new TreeMap<>();
+
+    private boolean percolates;
+
+    /**
+     * Creates labeler for grid rows of n sites.
+     * @param n
+     */
+    public HoshenKopelman(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        this.n = n;
+        previous = new int[n];
+        current = new int[n];
+        parent = new int[2 * n];
+        size = new long[2 * n];
+        flags = new int[2 * n];
+        dense = new int[2 * n];
+        liveSize = new long[n];
+        liveFlags = new int[n];
+    }
+
+    /**
+     * Adds next row of the grid, row[col] is true for open sites.
+     * @param row n sites, 0-based
+     * @param last true for the bottom row of the grid
+     */
+    public void addRow(boolean[] row, boolean last) {
+        if (row.length != n) {
+            throw new IllegalArgumentException("row must have " + n + " sites");
+        }
+
+        if (rows < 0) {
+            throw new IllegalStateException("bottom row was already added");
+        }
+
+        int siteFlags = rows == 0 ? TOP_CONNECTED : 0;
+        if (last) {
+            siteFlags |= BOTTOM_CONNECTED;
+        }
+
+        int labels = live;
+        for (int col = 0; col < n; col++) {
+            if (!row[col]) {
+                current[col] = BLOCKED;
+                continue;
+            }
+
+            int left = col > 0 ? current[col - 1] : BLOCKED;
+            int up = rows > 0 ? previous[col] : BLOCKED;
+            int label;
+            if (left == BLOCKED && up == BLOCKED) {
+                label = labels++;
+                parent[label] = label;
+                size[label] = 0;
+                flags[label] = 0;
+            } else if (up == BLOCKED) {
+                label = find(left);
+            } else if (left == BLOCKED) {
+                label = find(up);
+            } else {
+                label = union(find(left), find(up));
+            }
+
+            size[label]++;
+            flags[label] |= siteFlags;
+            current[col] = label;
+        }
+
+        // mark roots reaching this row, the others are finished clusters
+        for (int label = 0; label < labels; label++) {
+            dense[label] = BLOCKED;
+        }
+        int next = 0;
+        for (int col = 0; col < n; col++) {
+            if (current[col] == BLOCKED) {
+                continue;
+            }
+            int root = find(current[col]);
+            if (dense[root] == BLOCKED) {
+                dense[root] = next++;
+            }
+        }
+        for (int label = 0; label < labels; label++) {
+            if (parent[label] == label && (dense[label] == BLOCKED || last)) {
+                finish(label);
+            }
+        }
+
+        // compact live roots into labels 0 .. next - 1 for the next row
+        if (!last) {
+            compact(labels, next);
+        }
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+        live = last ? 0 : next;
+        rows = last ? -1 : rows + 1;
+    }
+
+    /**
+     * Examines if some cluster connects the top and the bottom row.
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Get number of finished clusters; all clusters are finished after the bottom row.
+     */
+    public long numberOfClusters() {
+        return numberOfClusters;
+    }
+
+    /**
+     * Get number of sites in the largest finished cluster.
+     */
+    public long largestClusterSize() {
+        return largestClusterSize;
+    }
+
+    /**
+     * Get number of finished clusters by their size in sites, in increasing size order.
+     */
+    public Map<Long, Long> clusterSizes() {
+        return Collections.unmodifiableMap(clusterSizes);
+    }
+
+    private void finish(int root) {
+        numberOfClusters++;
+        largestClusterSize = Math.max(largestClusterSize, size[root]);
+        clusterSizes.merge(size[root], 1L, Long::sum);
+        if ((flags[root] & PERCOLATED) == PERCOLATED) {
+            percolates = true;
+        }
+    }
+
+    // renumbers live roots to their dense ids and resets the union-find to them
+    private void compact(int labels, int next) {
+        for (int label = 0; label < labels; label++) {
+            if (parent[label] == label && dense[label] != BLOCKED) {
+                liveSize[dense[label]] = size[label];
+                liveFlags[dense[label]] = flags[label];
+            }
+        }
+        for (int col = 0; col < n; col++) {
+            if (current[col] != BLOCKED) {
+                current[col] = dense[find(current[col])];
+            }
+        }
+        for (int label = 0; label < next; label++) {
+            parent[label] = label;
+            size[label] = liveSize[label];
+            flags[label] = liveFlags[label];
+        }
+    }
+
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    // returns the root of the merged cluster
+    private int union(int rootP, int rootQ) {
+        if (rootP == rootQ) {
+            return rootP;
+        }
+
+        if (size[rootP] < size[rootQ]) {
+            int swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+        }
+        parent[rootQ] = rootP;
+        size[rootP] += size[rootQ];
+        flags[rootP] |= flags[rootQ];
+        return rootP;
+    }
+
+    /**
+     * Labels grid given as a list of open sites (PercolationVisualizer input format).
+     * The site list is not ordered by rows, so the grid is kept as a bitmap of n^2 bits.
+     */
+    public static HoshenKopelman fromSites(In in) {
+        int n = in.readInt();
+        long[] bits = new long[(int) (((long) n * n + Long.SIZE - 1) / Long.SIZE)];
+        while (!in.isEmpty()) {
+            int row = in.readInt();
+            int col = in.readInt();
+            if (row <= 0 || row > n || col <= 0 || col > n) {
+                throw new IllegalArgumentException("site (" + row + ", " + col + ") is out of the grid");
+            }
+            long siteId = (long) (row - 1) * n + (col - 1);
+            bits[(int) (siteId >>> 6)] |= 1L << siteId;
+        }
+
+        HoshenKopelman labeler = new HoshenKopelman(n);
+        boolean[] sites = new boolean[n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                long siteId = (long) row * n + col;
+                sites[col] = (bits[(int) (siteId >>> 6)] & (1L << siteId)) != 0;
+            }
+            labeler.addRow(sites, row == n - 1);
+        }
+        return labeler;
+    }
+
+    /**
+     * Labels grid given row by row (row file format), reading one line at a time.
+     */
+    public static HoshenKopelman fromRows(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IllegalArgumentException("grid size expected");
+        }
+        int n = Integer.parseInt(line.trim());
+
+        HoshenKopelman labeler = new HoshenKopelman(n);
+        boolean[] sites = new boolean[n];
+        for (int row = 0; row < n; row++) {
+            line = reader.readLine();
+            if (line == null || line.length() < n) {
+                throw new IllegalArgumentException("row " + (row + 1) + " must have " + n + " sites");
+            }
+            for (int col = 0; col < n; col++) {
+                sites[col] = line.charAt(col) == '1';
+            }
+            labeler.addRow(sites, row == n - 1);
+        }
+        return labeler;
+    }
+
+    // unit tests, or labelling of the given file
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            HoshenKopelman labeler;
+            if ("-rows".equals(args[0])) {
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.US_ASCII)) {
+                    labeler = fromRows(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                labeler = fromSites(new In(args[0]));
+            }
+            StdOut.println(labeler.percolates() ? "percolates" : "does not percolate");
+            StdOut.printf("clusters %d, largest %d\n", labeler.numberOfClusters(), labeler.largestClusterSize());
+            for (Map.Entry<Long, Long> entry : labeler.clusterSizes().entrySet()) {
+                StdOut.printf("%12d sites: %d\n", entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
+        HoshenKopelman h = new HoshenKopelman(3);
+        h.addRow(new boolean[]{true, false, true}, false);
+        h.addRow(new boolean[]{true, true, true}, false);
+        h.addRow(new boolean[]{false, false, true}, true);
+        StdOut.printf("u shape percolates %s\n", h.percolates() ? "OK" : "FAIL");
+        StdOut.printf("u shape is one cluster %s\n", h.numberOfClusters() == 1 ? "OK" : "FAIL");
+        StdOut.printf("u shape size %s\n", h.largestClusterSize() == 6 ? "OK" : "FAIL");
+
+        h = new HoshenKopelman(3);
+        h.addRow(new boolean[]{true, false, false}, false);
+        h.addRow(new boolean[]{false, false, true}, false);
+        h.addRow(new boolean[]{true, false, true}, true);
+        StdOut.printf("does not percolate %s\n", !h.percolates() ? "OK" : "FAIL");
+        StdOut.printf("three clusters %s\n", h.numberOfClusters() == 3 ? "OK" : "FAIL");
+        StdOut.printf("sizes 1, 1, 2 %s\n",
+                h.clusterSizes().get(1L) == 2 && h.clusterSizes().get(2L) == 1 ? "OK" : "FAIL");
+
+        // same answers as Percolation on random grids
+        boolean same = true;
+        SplittableRandom random = new SplittableRandom(7);
+        for (int t = 0; t < 500 && same; t++) {
+            int n = 1 + random.nextInt(16);
+            double p = random.nextDouble();
+            Percolation expected = new Percolation(n);
+            boolean[][] grid = new boolean[n][n];
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (random.nextDouble() < p) {
+                        grid[row][col] = true;
+                        expected.open(row + 1, col + 1);
+                    }
+                }
+            }
+            HoshenKopelman actual = new HoshenKopelman(n);
+            for (int row = 0; row < n; row++) {
+                actual.addRow(grid[row], row == n - 1);
+            }
+            same = actual.percolates() == expected.percolates()
+                    && actual.numberOfClusters() == expected.numberOfClusters()
+                    && actual.largestClusterSize() == expected.largestClusterSize();
+        }
+        StdOut.printf("same as Percolation %s\n", same ? "OK" : "FAIL");
+    }
+}
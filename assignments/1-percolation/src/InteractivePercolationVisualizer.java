@@ -8,6 +8,7 @@
  *  Then, the user repeatedly clicks sites to open with the mouse.
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black.
+ *  Grids larger than 200-by-200 are drawn by PercolationRaster.
  *
  ******************************************************************************/
 
@@ -24,6 +25,22 @@ public class InteractivePercolationVisualizer {
         // repeatedly open site specified my mouse click and draw resulting system
         StdOut.println(n);
 
+        if (n > PercolationVisualizer.RASTER_THRESHOLD) {
+            Percolation perc = new Percolation(n);
+            PercolationRaster raster = new PercolationRaster(n);
+            raster.show();
+            raster.update(perc);
+            // clicks arrive on the event thread, which also does all the drawing
+            raster.onClick((i, j) -> {
+                if (!perc.isOpen(i, j)) {
+                    StdOut.println(i + " " + j);
+                }
+                perc.open(i, j);
+                raster.update(perc);
+            });
+            return;
+        }
+
         StdDraw.enableDoubleBuffering();
         Percolation perc = new Percolation(n);
         PercolationVisualizer.draw(perc, n);
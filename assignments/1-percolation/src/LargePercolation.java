@@ -0,0 +1,387 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac LargePercolation.java
+ *  Execution:     java LargePercolation
+ *                 java -XX:MaxDirectMemorySize=12g LargePercolation 50000 42
+ *                 java LargePercolation 50000 42 /scratch/grid.bin
+ *
+ *  Percolation for grids with more than 2^31 sites,
+ *  stored off-heap or in a memory-mapped file.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Implements percolation test for n-by-n grid structure with long site ids.
+ * Every site takes 4 bytes outside of the Java heap, n may be up to 65535.
+ */
+public class LargePercolation implements AutoCloseable {
+
+    // Every site is an unsigned 32-bit word:
+    //   0                      site is blocked
+    //   1 .. ROOT - 1          site is open, its parent is word - 1
+    //   ROOT | rank << 2 | f   site is open and is a root with flags f
+    // Union is by rank, which needs only 6 bits, so flags and rank
+    // fit into the codes above the largest site id.
+    private static final int TOP_CONNECTED = 1;
+    private static final int BOTTOM_CONNECTED = 2;
+    private static final int PERCOLATED = TOP_CONNECTED | BOTTOM_CONNECTED;
+    private static final int RANK_SHIFT = 2;
+    private static final long ROOT = 0xFFFFFF00L;
+
+    private static final int MAX_N = 65535;
+
+    // sites are split into segments of 2^28 words (1 GB)
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final int n;
+
+    private long numberOfOpenSites;
+
+    private final IntBuffer[] segments;
+
+    private final FileChannel channel;
+
+    private boolean percolates;
+
+    /**
+     * Creates n-by-n grid, with all sites blocked, in direct (off-heap) memory.
+     * @param n
+     */
+    public LargePercolation(int n) {
+        validateSize(n);
+
+        this.n = n;
+        channel = null;
+        segments = new IntBuffer[segmentCount(n)];
+        long remaining = (long) n * n;
+        for (int i = 0; i < segments.length; i++) {
+            int words = (int) Math.min(remaining, 1L << SEGMENT_SHIFT);
+            segments[i] = ByteBuffer.allocateDirect(words * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+            remaining -= words;
+        }
+    }
+
+    /**
+     * Creates n-by-n grid, with all sites blocked, in a memory-mapped file.
+     * The file is truncated, so the grid may be larger than the physical memory.
+     * @param n
+     * @param file backing file
+     */
+    public LargePercolation(int n, Path file) {
+        validateSize(n);
+
+        this.n = n;
+        segments = new IntBuffer[segmentCount(n)];
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            long remaining = (long) n * n;
+            long position = 0;
+            for (int i = 0; i < segments.length; i++) {
+                long bytes = Math.min(remaining, 1L << SEGMENT_SHIFT) * Integer.BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes)
+                        .order(ByteOrder.nativeOrder())
+                        .asIntBuffer();
+                position += bytes;
+                remaining -= bytes / Integer.BYTES;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open site if it is not open already.
+     */
+    public void open(int row, int col) {
+        validatePosition(row, col);
+
+        openSite(getId(row, col));
+    }
+
+    /**
+     * Opens site by its 0-based id (row-major), skipping position validation.
+     */
+    void openSite(long siteId) {
+        if (get(siteId) != 0) {
+            return;
+        }
+
+        int row = (int) (siteId / n) + 1;
+        int col = (int) (siteId - (long) (row - 1) * n) + 1;
+
+        numberOfOpenSites++;
+
+        int siteState = 0;
+
+        if (row == 1) {
+            siteState = siteState | TOP_CONNECTED;
+        }
+
+        if (row == n) {
+            siteState = siteState | BOTTOM_CONNECTED;
+        }
+
+        set(siteId, ROOT | siteState);
+        long root = siteId;
+
+        // same 4-neighbour flattening as in Percolation
+        for (int i = -3; i <= 3; i += 2) {
+            int dy = i % 3;
+            int dx = i / 2;
+            int y = row + dy;
+            int x = col + dx;
+            if (y >= 1 && y <= n && x >= 1 && x <= n) {
+                long neighborId = getId(y, x);
+                if (get(neighborId) != 0) {
+                    long neighborRoot = find(neighborId);
+                    if (neighborRoot != root) {
+                        root = link(root, neighborRoot);
+                    }
+                }
+            }
+        }
+
+        if (!percolates) {
+            percolates = (get(root) & PERCOLATED) == PERCOLATED;
+        }
+    }
+
+    /**
+     * Examines if site is open.
+     */
+    public boolean isOpen(int row, int col) {
+        validatePosition(row, col);
+
+        return get(getId(row, col)) != 0;
+    }
+
+    /**
+     * Examines if site is full.
+     */
+    public boolean isFull(int row, int col) {
+        validatePosition(row, col);
+
+        long siteId = getId(row, col);
+        if (get(siteId) == 0) {
+            return false;
+        }
+        return (get(find(siteId)) & TOP_CONNECTED) == TOP_CONNECTED;
+    }
+
+    /**
+     * Get number of open sites
+     */
+    public long numberOfOpenSites() {
+        return numberOfOpenSites;
+    }
+
+    /**
+     * Examines if the system percolates.
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Releases the backing file; mapped memory is returned once the grid is garbage collected.
+     */
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void validateSize(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        if (n > MAX_N) {
+            throw new IllegalArgumentException("n must not be greater than " + MAX_N);
+        }
+    }
+
+    private static int segmentCount(int n) {
+        long sites = (long) n * n;
+        return (int) ((sites + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private void validatePosition(int row, int col) {
+        if (row <= 0 || row > n) {
+            throw new IllegalArgumentException();
+        }
+        if (col <= 0 || col > n) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    // unsigned word of the site
+    private long get(long siteId) {
+        return segments[(int) (siteId >>> SEGMENT_SHIFT)].get((int) (siteId & SEGMENT_MASK)) & 0xFFFFFFFFL;
+    }
+
+    private void set(long siteId, long word) {
+        segments[(int) (siteId >>> SEGMENT_SHIFT)].put((int) (siteId & SEGMENT_MASK), (int) word);
+    }
+
+    // root of an open site with path halving
+    private long find(long p) {
+        long word = get(p);
+        while (word < ROOT) {
+            long parent = word - 1;
+            long parentWord = get(parent);
+            if (parentWord >= ROOT) {
+                return parent;
+            }
+            set(p, parentWord);
+            p = parentWord - 1;
+            word = get(p);
+        }
+        return p;
+    }
+
+    // links two distinct roots by rank; returns the root of the merged component
+    private long link(long rootP, long rootQ) {
+        long p = get(rootP) - ROOT;
+        long q = get(rootQ) - ROOT;
+        long flags = (p | q) & PERCOLATED;
+        long rankP = p >>> RANK_SHIFT;
+        long rankQ = q >>> RANK_SHIFT;
+
+        if (rankP < rankQ) {
+            set(rootP, rootQ + 1);
+            set(rootQ, ROOT | rankQ << RANK_SHIFT | flags);
+            return rootQ;
+        }
+
+        if (rankP == rankQ) {
+            rankP++;
+        }
+        set(rootQ, rootP + 1);
+        set(rootP, ROOT | rankP << RANK_SHIFT | flags);
+        return rootP;
+    }
+
+    // Gets site Id in connections
+    // row, col are internal coordinates
+    private long getId(int row, int col) {
+        return (long) (row - 1) * n + (col - 1);
+    }
+
+    // unit tests, or a single large trial when the grid size is given
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            trial(args);
+            return;
+        }
+
+        LargePercolation p = new LargePercolation(1);
+        StdOut.printf("1x1 does not percolate %s\n", !p.percolates() ? "OK" : "FAIL");
+        p.open(1, 1);
+        StdOut.printf("1x1 percolates %s\n", p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("1x1 is full %s\n", p.isFull(1, 1) ? "OK" : "FAIL");
+
+        // complex path
+        StdOut.println("complex path:");
+        p = new LargePercolation(4);
+        p.open(2, 2);
+        p.open(2, 3);
+        p.open(1, 3);
+        StdOut.printf("\tis full %s\n", p.isFull(2, 2) ? "OK" : "FAIL");
+        StdOut.printf("\tdoes not percolate %s\n", !p.percolates() ? "OK" : "FAIL");
+        p.open(3, 4);
+        StdOut.printf("\tis not full %s\n", !p.isFull(3, 4) ? "OK" : "FAIL");
+        p.open(2, 4);
+        StdOut.printf("\tis full %s\n", p.isFull(3, 4) ? "OK" : "FAIL");
+        p.open(4, 1);
+        p.open(4, 4);
+        StdOut.printf("\tpercolates %s\n", p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("\tbackwash %s\n", !p.isFull(4, 1) ? "OK" : "FAIL");
+        StdOut.printf("\tnumberOfOpenSites %s\n", p.numberOfOpenSites() == 7 ? "OK" : "FAIL");
+
+        // same answers as Percolation on random grids
+        boolean same = true;
+        SplittableRandom random = new SplittableRandom(1);
+        for (int t = 0; t < 200 && same; t++) {
+            int n = 1 + random.nextInt(20);
+            Percolation expected = new Percolation(n);
+            LargePercolation actual = new LargePercolation(n);
+            while (!expected.percolates()) {
+                int row = 1 + random.nextInt(n);
+                int col = 1 + random.nextInt(n);
+                expected.open(row, col);
+                actual.open(row, col);
+                same = same && actual.percolates() == expected.percolates();
+            }
+            for (int row = 1; row <= n; row++) {
+                for (int col = 1; col <= n; col++) {
+                    same = same && actual.isFull(row, col) == expected.isFull(row, col)
+                            && actual.isOpen(row, col) == expected.isOpen(row, col);
+                }
+            }
+        }
+        StdOut.printf("same as Percolation %s\n", same ? "OK" : "FAIL");
+
+        // memory-mapped grid
+        try {
+            Path file = Files.createTempFile("percolation", ".bin");
+            try (LargePercolation mapped = new LargePercolation(3, file)) {
+                mapped.open(1, 2);
+                mapped.open(2, 2);
+                mapped.open(3, 2);
+                StdOut.printf("mapped percolates %s\n", mapped.percolates() ? "OK" : "FAIL");
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // opens random sites of an n-by-n grid until it percolates
+    // args: n seed [file]
+    private static void trial(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        long start = System.nanoTime();
+        try (LargePercolation p = args.length > 2
+                ? new LargePercolation(n, Paths.get(args[2]))
+                : new LargePercolation(n)) {
+            SplittableRandom random = new SplittableRandom(seed);
+            long sites = (long) n * n;
+            do {
+                p.openSite(random.nextLong(sites));
+            } while (!p.percolates());
+
+            StdOut.printf("threshold               = %.16f\n", (double) p.numberOfOpenSites() / sites);
+        }
+        StdOut.printf("elapsed                 = %.3f s\n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,26 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac Lattice.java
+ *
+ *  http://coursera.cs.princeton.edu/algs4/assignments/percolation.html
+ *----------------------------------------------------------------*/
+
+/**
+ * Site lattices supported by Percolation.
+ * Two-dimensional lattices are stored as an n-by-n grid in row-major order.
+ * The cubic lattice is n layers of n-by-n sites, seen as n * n rows of n sites,
+ * so the first layer is the top and the last layer is the bottom.
+ */
+public enum Lattice {
+    // 4 neighbors: left, up, down, right
+    SQUARE,
+    // 6 neighbors: square ones plus (row - 1, col - 1) and (row + 1, col + 1)
+    TRIANGULAR,
+    // 3 neighbors: left, right and, as in a brick wall, up when row + col is even, down otherwise
+    HONEYCOMB,
+    // 6 neighbors: left, right, front, back within a layer and the same site in adjacent layers
+    CUBIC
+}
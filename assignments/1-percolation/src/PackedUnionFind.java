@@ -0,0 +1,197 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac PackedUnionFind.java
+ *
+ *  Union-find core shared by Percolation and BondPercolation.
+ *----------------------------------------------------------------*/
+
+import java.util.Arrays;
+
+/**
+ * Weighted quick-union with path halving, where membership, parent links,
+ * component sizes and top/bottom flags share a single int array:
+ *   nodes[p] == 0   p is not in the forest (a blocked site)
+ *   nodes[p] >  0   p is a child, its parent is nodes[p] - 1
+ *   nodes[p] <  0   p is a root, ~nodes[p] = size << 2 | flags
+ * so flags live at component roots only.
+ */
+final class PackedUnionFind {
+
+    static final int TOP_CONNECTED = 1;
+    static final int BOTTOM_CONNECTED = 2;
+    static final int PERCOLATED = TOP_CONNECTED | BOTTOM_CONNECTED;
+
+    // marks present elements in componentFlags
+    static final int PRESENT = 4;
+
+    private static final int SIZE_SHIFT = 2;
+
+    // component size must fit into the bits left after the flags
+    static final int MAX_ELEMENTS = Integer.MAX_VALUE >>> SIZE_SHIFT;
+
+    // union by size keeps trees at most log2(MAX_ELEMENTS) links deep
+    private static final int MAX_DEPTH = Integer.SIZE - SIZE_SHIFT;
+
+    // elements are 0 .. size - 1, the array may be longer after a resize to a smaller capacity
+    private int[] nodes;
+    private int size;
+
+    // number of components and size of the largest one
+    private int count;
+    private int largest;
+
+    PackedUnionFind(int capacity) {
+        if (capacity < 0 || capacity > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("capacity must be in [0, " + MAX_ELEMENTS + "]");
+        }
+
+        nodes = new int[capacity];
+        size = capacity;
+    }
+
+    int capacity() {
+        return size;
+    }
+
+    // removes all elements
+    void clear() {
+        Arrays.fill(nodes, 0, size, 0);
+        count = 0;
+        largest = 0;
+    }
+
+    // removes all elements and changes the capacity, the array is reallocated only to grow
+    void resize(int capacity) {
+        if (capacity < 0 || capacity > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("capacity must be in [0, " + MAX_ELEMENTS + "]");
+        }
+
+        if (capacity > nodes.length) {
+            nodes = new int[capacity];
+        } else {
+            Arrays.fill(nodes, 0, Math.max(size, capacity), 0);
+        }
+        size = capacity;
+        count = 0;
+        largest = 0;
+    }
+
+    boolean contains(int p) {
+        return nodes[p] != 0;
+    }
+
+    // adds p as a single element component with the given flags
+    void add(int p, int flags) {
+        nodes[p] = ~(1 << SIZE_SHIFT | flags);
+        count++;
+        if (largest == 0) {
+            largest = 1;
+        }
+    }
+
+    // root of an element, halving the path on the way:
+    // every visited element is re-pointed to its grandparent
+    int find(int p) {
+        int link = nodes[p];
+        while (link > 0) {
+            int parentLink = nodes[link - 1];
+            if (parentLink > 0) {
+                nodes[p] = parentLink;
+                p = parentLink - 1;
+                link = nodes[p];
+            } else {
+                return link - 1;
+            }
+        }
+        return p;
+    }
+
+    // root of an element without path halving; the forest is not modified,
+    // so optimistic readers may follow the links while another thread changes them.
+    // Such a reader may see old and new links mixed, across a clear even into a cycle,
+    // so the walk stops after more links than a consistent tree has; the result
+    // is then meaningless, and the reader's validation fails
+    int root(int p) {
+        int link = nodes[p];
+        for (int depth = 0; link > 0 && depth <= MAX_DEPTH; depth++) {
+            p = link - 1;
+            link = nodes[p];
+        }
+        return p;
+    }
+
+    // links two distinct roots, the smaller tree goes under the larger one;
+    // returns the root of the merged component
+    int link(int rootP, int rootQ) {
+        int p = ~nodes[rootP];
+        int q = ~nodes[rootQ];
+        int size = (p >>> SIZE_SHIFT) + (q >>> SIZE_SHIFT);
+        int merged = ~(size << SIZE_SHIFT | ((p | q) & PERCOLATED));
+
+        count--;
+        if (size > largest) {
+            largest = size;
+        }
+
+        if (p >>> SIZE_SHIFT < q >>> SIZE_SHIFT) {
+            nodes[rootP] = rootQ + 1;
+            nodes[rootQ] = merged;
+            return rootQ;
+        }
+
+        nodes[rootQ] = rootP + 1;
+        nodes[rootP] = merged;
+        return rootP;
+    }
+
+    // merges the component of p into the one of root; returns the resulting root
+    int union(int root, int p) {
+        int other = find(p);
+        return other == root ? root : link(root, other);
+    }
+
+    // flags of the component of every element in one pass: result[p] is the component flags
+    // plus PRESENT for present elements, 0 for absent ones. Each path is walked up to the root
+    // or to the first element already done, then the flags are written along it,
+    // so every element is visited a constant number of times
+    void componentFlags(byte[] result) {
+        Arrays.fill(result, 0, size, (byte) 0);
+        for (int p = 0; p < size; p++) {
+            if (nodes[p] == 0 || result[p] != 0) {
+                continue;
+            }
+
+            int q = p;
+            while (nodes[q] > 0 && result[q] == 0) {
+                q = nodes[q] - 1;
+            }
+            byte known = result[q] != 0 ? result[q] : (byte) (PRESENT | flags(q));
+
+            for (int r = p; result[r] == 0; r = nodes[r] - 1) {
+                result[r] = known;
+                if (nodes[r] < 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    int flags(int root) {
+        return ~nodes[root] & PERCOLATED;
+    }
+
+    int size(int root) {
+        return ~nodes[root] >>> SIZE_SHIFT;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int largest() {
+        return largest;
+    }
+}
@@ -0,0 +1,166 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac ParallelTrials.java
+ *
+ *  Seeded fork-join runner of independent trials, shared by
+ *  PercolationStats and BondPercolationStats.
+ *----------------------------------------------------------------*/
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Runs trials in a fork-join pool. Trial i draws from its own random stream
+ * derived from the master seed and stores its result in slot i,
+ * so results for a given seed do not depend on the number of threads.
+ * A runner can be called for consecutive batches of trials,
+ * so callers can look at the results between batches.
+ */
+final class ParallelTrials<W> implements AutoCloseable {
+
+    // increment of the per-trial seed sequence (same as SplittableRandom's golden gamma)
+    private static final long SEED_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // trials per fork-join leaf task are chosen so that every worker gets several tasks
+    private static final int TASKS_PER_THREAD = 8;
+
+    // leaf tasks of a full batch run this many trials, so one slow trial does not stall a batch
+    private static final int TRIALS_PER_TASK = 16;
+
+    private final long seed;
+    private final int threads;
+    private final ThreadLocal<W> workers;
+    private final Experiment<W> experiment;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    /**
+     * Single trial run by a worker thread with its reusable state.
+     */
+    interface Experiment<W> {
+        double run(W worker, SplittableRandom random);
+    }
+
+    /**
+     * Creates runner whose pool threads keep their worker state between calls of {@link #run(long, int)}.
+     */
+    ParallelTrials(long seed, int threads, Supplier<W> newWorker, Experiment<W> experiment) {
+        this(seed, newPool(threads), true, newWorker, experiment);
+    }
+
+    /**
+     * Creates runner on a pool shared with other runners, the pool is not shut down on close.
+     */
+    ParallelTrials(long seed, ForkJoinPool pool, Supplier<W> newWorker, Experiment<W> experiment) {
+        this(seed, pool, false, newWorker, experiment);
+    }
+
+    private ParallelTrials(long seed, ForkJoinPool pool, boolean ownsPool,
+                           Supplier<W> newWorker, Experiment<W> experiment) {
+        this.seed = seed;
+        this.threads = pool.getParallelism();
+        this.workers = ThreadLocal.withInitial(newWorker);
+        this.experiment = experiment;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    static ForkJoinPool newPool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+
+        return new ForkJoinPool(threads);
+    }
+
+    /**
+     * Runs trials experiments, every pool thread creates one worker state and reuses it.
+     * @return result of every trial, in trial order
+     */
+    static <W> double[] run(int trials, long seed, int threads, Supplier<W> newWorker, Experiment<W> experiment) {
+        try (ParallelTrials<W> runner = new ParallelTrials<>(seed, threads, newWorker, experiment)) {
+            return runner.run(0, trials);
+        }
+    }
+
+    /**
+     * Runs trials first .. first + count - 1.
+     * @return result of every trial, in trial order
+     */
+    double[] run(long first, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("trials must be greater than 0");
+        }
+
+        double[] results = new double[count];
+        int leafSize = Math.max(1, count / (threads * TASKS_PER_THREAD));
+        pool.invoke(new TrialsTask<>(this, results, first, 0, count, leafSize));
+        return results;
+    }
+
+    /**
+     * Get smallest number of trials that keeps every pool thread busy with several tasks
+     * of several trials each; callers running in batches should not go below it.
+     */
+    int fullBatch() {
+        return threads * TASKS_PER_THREAD * TRIALS_PER_TASK;
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    // random stream of the given trial, independent of which worker runs it;
+    // seeds are scrambled, otherwise streams of neighbour trials would overlap
+    static SplittableRandom trialRandom(long seed, long trial) {
+        long z = seed + (trial + 1) * SEED_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    // runs trials first + lo .. first + hi - 1 and stores each result in its own slot,
+    // so the merged array is the same for any split
+    private static final class TrialsTask<W> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelTrials<W> runner;
+        private final double[] results;
+        private final long first;
+        private final int lo;
+        private final int hi;
+        private final int leafSize;
+
+        TrialsTask(ParallelTrials<W> runner, double[] results, long first, int lo, int hi, int leafSize) {
+            this.runner = runner;
+            this.results = results;
+            this.first = first;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= leafSize) {
+                W worker = runner.workers.get();
+                for (int i = lo; i < hi; i++) {
+                    results[i] = runner.experiment.run(worker, trialRandom(runner.seed, first + i));
+                }
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new TrialsTask<>(runner, results, first, lo, mid, leafSize),
+                    new TrialsTask<>(runner, results, first, mid, hi, leafSize));
+        }
+    }
+}
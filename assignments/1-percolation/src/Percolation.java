@@ -10,42 +10,124 @@
  *----------------------------------------------------------------*/
 
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * Implements percolation test for n-by-n grid structure
  */
 public class Percolation {
 
-    private static final byte OPEN = 1;
-    private static final byte TOP_CONNECTED = 2;
-    private static final byte BOTTOM_CONNECTED = 4;
-    private static final byte PERCOLATED = TOP_CONNECTED | BOTTOM_CONNECTED;
+    private static final int TOP_CONNECTED = PackedUnionFind.TOP_CONNECTED;
+    private static final int BOTTOM_CONNECTED = PackedUnionFind.BOTTOM_CONNECTED;
+    private static final int PERCOLATED = PackedUnionFind.PERCOLATED;
 
-    private final int n;
+    // not final, reset(int) changes the size
+    private int n;
 
-    private int numberOfOpenSites;
+    private final Lattice lattice;
 
-    private final byte[] state;
+    // neighbors across the left and right edges (and front and back for CUBIC)
+    private final boolean periodic;
 
-    private final WeightedQuickUnionUF connections;
+    // number of rows; the first sideSites sites are top ones, the last sideSites bottom ones
+    private int rows;
+    private int sideSites;
+
+    private int numberOfOpenSites;
+
+    // open sites are the elements of the forest, blocked sites are absent
+    private final PackedUnionFind sites;
 
     private boolean percolates;
 
+    // scratch buffer of fullMask and forEachFull, allocated on first use
+    private byte[] componentFlags;
+
     /**
      * Creates n-by-n grid, with all sites blocked.
      * @param n
      */
     public Percolation(int n) {
+        this(n, Lattice.SQUARE, false);
+    }
+
+    /**
+     * Creates lattice of the given type and size n, with all sites blocked.
+     * Percolation is always from the top to the bottom, periodic boundaries
+     * connect the sides only.
+     * @param n
+     * @param lattice neighborhood of sites
+     * @param periodic true to wrap sides around
+     */
+    public Percolation(int n, Lattice lattice, boolean periodic) {
         if (n <= 0) {
             throw new IllegalArgumentException("n must be greater than 0");
         }
 
-        this.n = n;
-        state = new byte[n * n];
-        connections = new WeightedQuickUnionUF(n * n);
+        if (lattice == null) {
+            throw new IllegalArgumentException("lattice must not be null");
+        }
+
+        this.lattice = lattice;
+        this.periodic = periodic;
+        rows = rowCount(n);
+        sites = new PackedUnionFind(rows * n);
+        setSize(n);
+
+        numberOfOpenSites = 0;
+    }
+
+    /**
+     * Blocks all sites again, reusing the grid array.
+     */
+    public void reset() {
+        sites.clear();
+
+        numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    /**
+     * Blocks all sites and changes the size to n, keeping the lattice.
+     * The grid array is reallocated only if n is larger than any size before,
+     * smaller grids use a prefix of it.
+     */
+    void reset(int n) {
+        rows = rowCount(n);
+        sites.resize(rows * n);
+        setSize(n);
+        // callers of componentFlags() read one entry per site
+        if (componentFlags != null && componentFlags.length != sites.capacity()) {
+            componentFlags = null;
+        }
 
         numberOfOpenSites = 0;
+        percolates = false;
+    }
+
+    // number of rows of a valid size n of this lattice
+    private int rowCount(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        // brick wall pattern does not close up around an odd number of columns
+        if (lattice == Lattice.HONEYCOMB && periodic && n % 2 != 0) {
+            throw new IllegalArgumentException("periodic honeycomb lattice needs even n");
+        }
+
+        long rowCount = lattice == Lattice.CUBIC ? (long) n * n : n;
+        if (rowCount * n > PackedUnionFind.MAX_ELEMENTS) {
+            throw new IllegalArgumentException("n is too large");
+        }
+        return (int) rowCount;
+    }
+
+    private void setSize(int n) {
+        this.n = n;
+        sideSites = lattice == Lattice.CUBIC ? n * n : n;
     }
 
     /**
@@ -54,60 +136,220 @@ public class Percolation {
     public void open(int row, int col) {
         validatePosition(row, col);
 
-        int siteId = getId(row, col);
+        openSite(getId(row, col));
+    }
 
-        if (state[siteId] != 0) {
+    /**
+     * Opens site by its 0-based id (row-major), skipping position validation.
+     * Intended for simulation loops that generate ids themselves.
+     */
+    void openSite(int siteId) {
+        if (sites.contains(siteId)) {
             return;
         }
 
+        // 0-based
+        int row = siteId / n;
+        int col = siteId - row * n;
+
         numberOfOpenSites++;
 
-        int siteState = OPEN;
+        int siteState = 0;
 
-        if (row == 1) {
+        if (siteId < sideSites) {
             siteState = siteState | TOP_CONNECTED;
         }
 
-        if (row == n) {
+        if (siteId >= sites.capacity() - sideSites) {
             siteState = siteState | BOTTOM_CONNECTED;
         }
 
-        // look around
-        // and connect to other open sites
-        // matrix flattening
-        //  -4  -3  -2
-        //  -1   0   1
-        //   2   3   4
-        // flatten range: [-3, -1,  1,  3]
-        // dx = i % 3; // [ 0, -1,  1,  0]
-        // dy = i / 2; // [-1,  0,  0,  1]
-        for (int i = -3; i <= 3; i += 2) {
-            int dy = i % 3;
-            int dx = i / 2;
-            int y = row + dy;
-            int x = col + dx;
-            if (y >= 1 && y <= n && x >= 1 && x <= n) {
-                int neighborId = getId(y, x);
-                if (state[neighborId] != 0) {
-                    // mixin state of neighbor before union into site state
-                    siteState = siteState | state[connections.find(neighborId)];
-                    connections.union(siteId, neighborId);
+        sites.add(siteId, siteState);
+        int root = siteId;
+
+        // one dispatch per site, neighbors are visited by a loop specific to the lattice
+        switch (lattice) {
+            case TRIANGULAR:
+                root = connectTriangular(root, row, col);
+                break;
+            case HONEYCOMB:
+                root = connectHoneycomb(root, row, col);
+                break;
+            case CUBIC:
+                root = connectCubic(root, row, col);
+                break;
+            default:
+                if (row > 0 && row < rows - 1 && col > 0 && col < n - 1) {
+                    // interior site, all four neighbors exist
+                    root = connect(root, siteId - 1);
+                    root = connect(root, siteId - n);
+                    root = connect(root, siteId + n);
+                    root = connect(root, siteId + 1);
+                } else {
+                    root = connectSquare(root, row, col);
                 }
+                break;
+        }
+
+        if (!percolates) {
+            percolates = sites.flags(root) == PERCOLATED;
+        }
+    }
+
+    /**
+     * Opens a batch of sites given by 1-based rows and cols.
+     * All positions are validated before any site is opened. Sites are opened in the
+     * given order until the system percolates, the rest in row-major order.
+     * @return index in the batch of the site that made the system percolate,
+     *         or -1 if the system did not start to percolate within the batch
+     */
+    public int openAll(int[] rows, int[] cols) {
+        if (rows == null || cols == null || rows.length != cols.length) {
+            throw new IllegalArgumentException("rows and cols must be of the same length");
+        }
+
+        int[] siteIds = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            validatePosition(rows[i], cols[i]);
+            siteIds[i] = getId(rows[i], cols[i]);
+        }
+
+        return openBatch(siteIds);
+    }
+
+    /**
+     * Opens a batch of sites given by 0-based row-major ids.
+     * All ids are validated before any site is opened. Sites are opened in the
+     * given order until the system percolates, the rest in row-major order.
+     * @return index in the batch of the site that made the system percolate,
+     *         or -1 if the system did not start to percolate within the batch
+     */
+    public int openAll(int[] siteIds) {
+        if (siteIds == null) {
+            throw new IllegalArgumentException("siteIds must not be null");
+        }
+
+        for (int siteId : siteIds) {
+            if (siteId < 0 || siteId >= sites.capacity()) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        return openBatch(siteIds.clone());
+    }
+
+    // Opens sites in the given order until the system percolates, because the returned moment
+    // depends on that order and opened sites cannot be reordered afterwards; only the sites
+    // after that moment are sorted, so that neighbors are opened close in time and memory.
+    // A batch that does not percolate is opened in the caller's order and gains nothing;
+    // the sort pays off for batches opened after percolation and for the tail of a batch
+    // that fills the grid, such as the remaining ~40% of a random order of all sites.
+    // siteIds is used as a scratch buffer.
+    private int openBatch(int[] siteIds) {
+        int moment = -1;
+        int i = 0;
+        while (!percolates && i < siteIds.length) {
+            openSite(siteIds[i]);
+            if (percolates) {
+                moment = i;
             }
+            i++;
         }
 
-        // update
-        byte newState = (byte) siteState;
-        int siteComponentId = connections.find(siteId);
-        if (siteComponentId == 0) {
-            state[siteId] = newState;
-        } else {
-            state[siteComponentId] = newState;
+        Arrays.sort(siteIds, i, siteIds.length);
+        for (; i < siteIds.length; i++) {
+            openSite(siteIds[i]);
         }
 
-        if (!percolates) {
-            percolates = (siteState & PERCOLATED) == PERCOLATED;
+        return moment;
+    }
+
+    private int connect(int root, int neighborId) {
+        return sites.contains(neighborId) ? sites.union(root, neighborId) : root;
+    }
+
+    // id of the site in column col of the row starting at rowStart,
+    // or -1 if the column is outside of a non-periodic lattice
+    private int inRow(int rowStart, int col) {
+        if (col < 0) {
+            return periodic ? rowStart + n - 1 : -1;
         }
+        if (col >= n) {
+            return periodic ? rowStart : -1;
+        }
+        return rowStart + col;
+    }
+
+    private int connectIfExists(int root, int neighborId) {
+        return neighborId < 0 ? root : connect(root, neighborId);
+    }
+
+    // row and col are 0-based in the connect methods below
+
+    private int connectSquare(int root, int row, int col) {
+        int rowStart = row * n;
+        root = connectIfExists(root, inRow(rowStart, col - 1));
+        if (row > 0) {
+            root = connect(root, rowStart - n + col);
+        }
+        if (row < rows - 1) {
+            root = connect(root, rowStart + n + col);
+        }
+        return connectIfExists(root, inRow(rowStart, col + 1));
+    }
+
+    private int connectTriangular(int root, int row, int col) {
+        int rowStart = row * n;
+        root = connectSquare(root, row, col);
+        if (row > 0) {
+            root = connectIfExists(root, inRow(rowStart - n, col - 1));
+        }
+        if (row < rows - 1) {
+            root = connectIfExists(root, inRow(rowStart + n, col + 1));
+        }
+        return root;
+    }
+
+    private int connectHoneycomb(int root, int row, int col) {
+        int rowStart = row * n;
+        root = connectIfExists(root, inRow(rowStart, col - 1));
+        root = connectIfExists(root, inRow(rowStart, col + 1));
+        if (((row + col) & 1) == 0) {
+            if (row > 0) {
+                root = connect(root, rowStart - n + col);
+            }
+        } else if (row < rows - 1) {
+            root = connect(root, rowStart + n + col);
+        }
+        return root;
+    }
+
+    // rows of a cubic lattice are layer * n + y
+    private int connectCubic(int root, int row, int col) {
+        int layerSize = sideSites;
+        int rowStart = row * n;
+        int y = row % n;
+        root = connectIfExists(root, inRow(rowStart, col - 1));
+        root = connectIfExists(root, inRow(rowStart, col + 1));
+
+        if (y > 0) {
+            root = connect(root, rowStart - n + col);
+        } else if (periodic) {
+            root = connect(root, rowStart + layerSize - n + col);
+        }
+        if (y < n - 1) {
+            root = connect(root, rowStart + n + col);
+        } else if (periodic) {
+            root = connect(root, rowStart - layerSize + n + col);
+        }
+
+        if (row >= n) {
+            root = connect(root, rowStart - layerSize + col);
+        }
+        if (row < rows - n) {
+            root = connect(root, rowStart + layerSize + col);
+        }
+        return root;
     }
 
     /**
@@ -116,7 +358,7 @@ public class Percolation {
     public boolean isOpen(int row, int col) {
         validatePosition(row, col);
 
-        return state[getId(row, col)] > 0;
+        return sites.contains(getId(row, col));
     }
 
     /**
@@ -126,7 +368,18 @@ public class Percolation {
         validatePosition(row, col);
 
         int siteId = getId(row, col);
-        return ((int) state[connections.find(siteId)] & TOP_CONNECTED) == TOP_CONNECTED;
+        if (!sites.contains(siteId)) {
+            return false;
+        }
+        return (sites.flags(sites.find(siteId)) & TOP_CONNECTED) == TOP_CONNECTED;
+    }
+
+    // isFull that does not modify the union-find, see ConcurrentPercolation
+    boolean isFullReadOnly(int row, int col) {
+        validatePosition(row, col);
+
+        int siteId = getId(row, col);
+        return sites.contains(siteId) && (sites.flags(sites.root(siteId)) & TOP_CONNECTED) == TOP_CONNECTED;
     }
 
     /**
@@ -143,8 +396,75 @@ public class Percolation {
         return percolates;
     }
 
+    /**
+     * Receives sites of {@link #forEachFull(SiteConsumer)}.
+     */
+    public interface SiteConsumer {
+        void accept(int row, int col);
+    }
+
+    /**
+     * Get fullness of all sites at once, in O(n^2) without a find per site;
+     * mask[(row - 1) * n + (col - 1)] is isFull(row, col).
+     */
+    public boolean[] fullMask() {
+        boolean[] mask = new boolean[sites.capacity()];
+        fullMask(mask);
+        return mask;
+    }
+
+    /**
+     * Same as {@link #fullMask()}, filling the given array of rows * n entries.
+     */
+    public void fullMask(boolean[] mask) {
+        if (mask.length != sites.capacity()) {
+            throw new IllegalArgumentException("mask must have " + sites.capacity() + " entries");
+        }
+
+        byte[] flags = componentFlags();
+        for (int siteId = 0; siteId < mask.length; siteId++) {
+            mask[siteId] = (flags[siteId] & TOP_CONNECTED) != 0;
+        }
+    }
+
+    /**
+     * Calls consumer for every full site in row-major order, in O(n^2) without a find per site.
+     */
+    public void forEachFull(SiteConsumer consumer) {
+        byte[] flags = componentFlags();
+        for (int siteId = 0; siteId < flags.length; siteId++) {
+            if ((flags[siteId] & TOP_CONNECTED) != 0) {
+                consumer.accept(siteId / n + 1, siteId % n + 1);
+            }
+        }
+    }
+
+    // flags of every site's component plus PackedUnionFind.PRESENT for open sites,
+    // computed into a buffer reused between calls, see PercolationRaster
+    byte[] componentFlags() {
+        if (componentFlags == null) {
+            componentFlags = new byte[sites.capacity()];
+        }
+        sites.componentFlags(componentFlags);
+        return componentFlags;
+    }
+
+    /**
+     * Get number of connected components of open sites.
+     */
+    int numberOfClusters() {
+        return sites.count();
+    }
+
+    /**
+     * Get number of sites in the largest connected component.
+     */
+    int largestClusterSize() {
+        return sites.largest();
+    }
+
     private void validatePosition(int row, int col) {
-        if (row <= 0 || row > n) {
+        if (row <= 0 || row > rows) {
             throw new IllegalArgumentException();
         }
         if (col <= 0 || col > n) {
@@ -227,6 +547,230 @@ public class Percolation {
         StdOut.printf("\tpercolates %s\n", p.percolates() ? "OK" : "FAIL");
         StdOut.printf("\tbackwash %s\n", !p.isFull(4,1) ? "OK" : "FAIL");
         StdOut.printf("\tnumberOfOpenSites %s\n", p.numberOfOpenSites() == 7 ? "OK" : "FAIL");
+
+        // site joining a larger component stays open
+        p = new Percolation(3);
+        p.open(1, 1);
+        p.open(1, 2);
+        p.open(2, 2);
+        StdOut.printf("child site is open %s\n", p.isOpen(2, 2) ? "OK" : "FAIL");
+        p.open(2, 2);
+        StdOut.printf("reopen is ignored %s\n", p.numberOfOpenSites() == 3 ? "OK" : "FAIL");
+
+        // reset
+        StdOut.println("reset:");
+        p = new Percolation(3);
+        p.open(1, 2);
+        p.open(2, 2);
+        p.open(3, 2);
+        p.reset();
+        StdOut.printf("\tdoes not percolate %s\n", !p.percolates() ? "OK" : "FAIL");
+        StdOut.printf("\tnumberOfOpenSites %s\n", p.numberOfOpenSites() == 0 ? "OK" : "FAIL");
+        StdOut.printf("\tis not open %s\n", !p.isOpen(2, 2) ? "OK" : "FAIL");
+        StdOut.printf("\tis not full %s\n", !p.isFull(1, 2) ? "OK" : "FAIL");
+        p.open(3, 2);
+        p.open(2, 2);
+        StdOut.printf("\tis not full %s\n", !p.isFull(2, 2) ? "OK" : "FAIL");
+        p.open(1, 2);
+        StdOut.printf("\tpercolates %s\n", p.percolates() ? "OK" : "FAIL");
+
+        // bottom flag of previous generation must not leak
+        p = new Percolation(5);
+        p.open(5, 3);
+        p.open(4, 3);
+        p.open(3, 3);
+        p.reset();
+        p.open(3, 2);
+        p.open(2, 3);
+        p.open(4, 3);
+        p.open(4, 4);
+        p.open(3, 4);
+        p.open(3, 3);
+        p.open(1, 3);
+        StdOut.printf("\tno stale state %s\n", !p.percolates() ? "OK" : "FAIL");
+
+        // site ids
+        p = new Percolation(3);
+        p.openSite(5);
+        StdOut.printf("site 5 is (2, 3) %s\n", p.isOpen(2, 3) ? "OK" : "FAIL");
+        p.openSite(2);
+        p.openSite(8);
+        StdOut.printf("site ids percolate %s\n", p.percolates() ? "OK" : "FAIL");
+
+        // batch
+        StdOut.println("batch:");
+        p = new Percolation(3);
+        int moment = p.openAll(new int[]{3, 1, 2, 2, 1}, new int[]{3, 1, 1, 3, 3});
+        StdOut.printf("\tpercolation moment %s\n", moment == 4 ? "OK" : "FAIL");
+        StdOut.printf("\tall opened %s\n", p.numberOfOpenSites() == 5 ? "OK" : "FAIL");
+        moment = p.openAll(new int[]{1, 4});
+        StdOut.printf("\talready percolates %s\n", moment == -1 ? "OK" : "FAIL");
+        StdOut.printf("\tids opened %s\n", p.isOpen(1, 2) && p.isOpen(2, 2) ? "OK" : "FAIL");
+        try {
+            p = new Percolation(3);
+            p.openAll(new int[]{1, 9});
+            StdOut.printf("\tinvalid id throws %s\n", "FAIL");
+        } catch (IllegalArgumentException e) {
+            StdOut.printf("\tinvalid id throws %s\n", p.numberOfOpenSites() == 0 ? "OK" : "FAIL");
+        }
+
+        // lattices
+        StdOut.println("lattices:");
+        p = new Percolation(2, Lattice.TRIANGULAR, false);
+        p.open(1, 1);
+        p.open(2, 2);
+        StdOut.printf("\ttriangular diagonal %s\n", p.percolates() ? "OK" : "FAIL");
+        p = new Percolation(2, Lattice.TRIANGULAR, false);
+        p.open(1, 2);
+        p.open(2, 1);
+        StdOut.printf("\ttriangular other diagonal %s\n", !p.percolates() ? "OK" : "FAIL");
+        p = new Percolation(2, Lattice.HONEYCOMB, false);
+        p.open(1, 1);
+        p.open(2, 1);
+        StdOut.printf("\thoneycomb no link %s\n", !p.percolates() ? "OK" : "FAIL");
+        p.open(1, 2);
+        p.open(2, 2);
+        StdOut.printf("\thoneycomb link %s\n", p.percolates() ? "OK" : "FAIL");
+        p = new Percolation(3, Lattice.SQUARE, true);
+        p.open(1, 3);
+        p.open(2, 3);
+        p.open(2, 1);
+        StdOut.printf("\tperiodic wraps %s\n", p.isFull(2, 1) ? "OK" : "FAIL");
+        p = new Percolation(2, Lattice.CUBIC, false);
+        p.open(1, 1);
+        p.open(4, 1);
+        StdOut.printf("\tcubic no link %s\n", !p.percolates() ? "OK" : "FAIL");
+        p.open(3, 1);
+        StdOut.printf("\tcubic layers %s\n", p.percolates() ? "OK" : "FAIL");
+        p = new Percolation(3, Lattice.CUBIC, true);
+        p.open(1, 1);
+        p.open(3, 1);
+        StdOut.printf("\tcubic periodic wraps %s\n", p.numberOfClusters() == 1 ? "OK" : "FAIL");
+        StdOut.printf("\tsquare threshold %s\n",
+                Math.abs(meanThreshold(Lattice.SQUARE, 64) - 0.5927) < 0.02 ? "OK" : "FAIL");
+        StdOut.printf("\ttriangular threshold %s\n",
+                Math.abs(meanThreshold(Lattice.TRIANGULAR, 64) - 0.5) < 0.02 ? "OK" : "FAIL");
+        StdOut.printf("\thoneycomb threshold %s\n",
+                Math.abs(meanThreshold(Lattice.HONEYCOMB, 64) - 0.6962) < 0.02 ? "OK" : "FAIL");
+        StdOut.printf("\tcubic threshold %s\n",
+                Math.abs(meanThreshold(Lattice.CUBIC, 16) - 0.3116) < 0.03 ? "OK" : "FAIL");
+
+        // clusters
+        StdOut.println("clusters:");
+        p = new Percolation(3);
+        p.open(1, 1);
+        p.open(1, 3);
+        p.open(3, 1);
+        StdOut.printf("\tthree clusters %s\n", p.numberOfClusters() == 3 ? "OK" : "FAIL");
+        StdOut.printf("\tlargest is 1 %s\n", p.largestClusterSize() == 1 ? "OK" : "FAIL");
+        p.open(1, 2);
+        StdOut.printf("\tmerged into two %s\n", p.numberOfClusters() == 2 ? "OK" : "FAIL");
+        StdOut.printf("\tlargest is 3 %s\n", p.largestClusterSize() == 3 ? "OK" : "FAIL");
+        p.open(2, 1);
+        p.open(2, 2);
+        StdOut.printf("\tcycle gives one %s\n", p.numberOfClusters() == 1 ? "OK" : "FAIL");
+        StdOut.printf("\tlargest is 6 %s\n", p.largestClusterSize() == 6 ? "OK" : "FAIL");
+        p.reset();
+        StdOut.printf("\treset clears %s\n",
+                p.numberOfClusters() == 0 && p.largestClusterSize() == 0 ? "OK" : "FAIL");
+
+        // bulk queries
+        StdOut.println("bulk full sites:");
+        p = new Percolation(3);
+        p.open(1, 2);
+        p.open(2, 2);
+        p.open(3, 3);
+        boolean[] mask = p.fullMask();
+        StdOut.printf("\tmask %s\n", mask[1] && mask[4] && !mask[8] && !mask[0] ? "OK" : "FAIL");
+        StdOut.printf("\tsame as isFull %s\n", bulkFullMatches() ? "OK" : "FAIL");
+
+        // one grid for several sizes
+        StdOut.println("resized grid:");
+        StdOut.printf("\tsame as new grid %s\n", resizedMatches() ? "OK" : "FAIL");
+    }
+
+    // a grid reset to another size opens sites exactly as a new grid of that size
+    private static boolean resizedMatches() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (Lattice lattice : Lattice.values()) {
+            Percolation reused = new Percolation(2, lattice, true);
+            for (int t = 0; t < 20; t++) {
+                int n = 2 + 2 * random.nextInt(8);
+                reused.reset(n);
+                Percolation p = new Percolation(n, lattice, true);
+                int sites = p.sites.capacity();
+                if (reused.sites.capacity() != sites) {
+                    return false;
+                }
+                while (!p.percolates()) {
+                    int siteId = random.nextInt(sites);
+                    p.openSite(siteId);
+                    reused.openSite(siteId);
+                    if (reused.percolates() != p.percolates() || reused.numberOfClusters() != p.numberOfClusters()
+                            || reused.largestClusterSize() != p.largestClusterSize()) {
+                        return false;
+                    }
+                }
+                if (!Arrays.equals(reused.fullMask(), p.fullMask())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // fullMask and forEachFull agree with isFull on random grids
+    private static boolean bulkFullMatches() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (Lattice lattice : Lattice.values()) {
+            for (int t = 0; t < 20; t++) {
+                int n = 2 + 2 * random.nextInt(10);
+                Percolation p = new Percolation(n, lattice, random.nextBoolean());
+                int sites = p.sites.capacity();
+                int opened = random.nextInt(sites);
+                for (int i = 0; i < opened; i++) {
+                    p.openSite(random.nextInt(sites));
+                }
+
+                boolean[] mask = p.fullMask();
+                boolean[] visited = new boolean[sites];
+                int[] previous = {-1};
+                boolean[] ordered = {true};
+                p.forEachFull((row, col) -> {
+                    int siteId = (row - 1) * n + (col - 1);
+                    ordered[0] = ordered[0] && siteId > previous[0];
+                    previous[0] = siteId;
+                    visited[siteId] = true;
+                });
+                for (int siteId = 0; siteId < sites; siteId++) {
+                    boolean full = p.isFull(siteId / n + 1, siteId % n + 1);
+                    if (mask[siteId] != full || visited[siteId] != full) {
+                        return false;
+                    }
+                }
+                if (!ordered[0]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // mean fraction of open sites at percolation over random opening orders
+    private static double meanThreshold(Lattice lattice, int n) {
+        final int trials = 100;
+        Percolation p = new Percolation(n, lattice, false);
+        SplittableRandom random = new SplittableRandom(trials);
+        double sum = 0;
+        for (int t = 0; t < trials; t++) {
+            p.reset();
+            int sites = p.sites.capacity();
+            while (!p.percolates()) {
+                p.openSite(random.nextInt(sites));
+            }
+            sum += (double) p.numberOfOpenSites() / sites;
+        }
+        return sum / trials;
     }
 
 }
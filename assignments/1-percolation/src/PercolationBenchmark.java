@@ -0,0 +1,368 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac PercolationBenchmark.java
+ *  Execution:     java PercolationBenchmark
+ *                 java PercolationBenchmark 64 256 1024 4096
+ *                 java PercolationBenchmark -out new.csv -compare old.csv 64 256
+ *  Dependencies:  Percolation.java PercolationStats.java WeightedQuickUnionUF.java
+ *
+ *  Benchmarks the hot path of Percolation: open in random, row-major
+ *  and adversarial order, isFull, fullMask, percolates during opening and
+ *  a whole PercolationStats experiment; also compares the packed
+ *  union-find against the previous WeightedQuickUnionUF based
+ *  implementation. Results can be saved as CSV and compared with
+ *  the CSV of another revision, run with the same sizes and JVM.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Main-method harness in place of JMH, which the course library setup does not provide:
+ * a fixed number of warm-up iterations followed by measured iterations,
+ * reporting the median time per operation. Every benchmark is named
+ * "operation/order", and its result is consumed through a static sink.
+ */
+public final class PercolationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long SEED = 20170810L;
+
+    private static final String CSV_HEADER = "benchmark,n,ns_per_op";
+
+    // results of benchmarked work are accumulated here so the JIT cannot drop it
+    private static long sink;
+
+    /**
+     * Orders in which the benchmarks open sites.
+     */
+    private enum Order {
+        // random permutation of all sites
+        RANDOM,
+        // row by row from the top, long runs of unions with the left neighbour
+        ROW_MAJOR,
+        // all sites of one checkerboard colour first, so none of them has an open neighbour,
+        // then the others bottom up, every one of them merging up to four clusters
+        ADVERSARIAL
+    }
+
+    private PercolationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Path out = null;
+        Path previousRun = null;
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-out".equals(args[i])) {
+                out = Paths.get(args[++i]);
+            } else if ("-compare".equals(args[i])) {
+                previousRun = Paths.get(args[++i]);
+            } else {
+                sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(Arrays.asList(64, 256, 1024, 4096));
+        }
+
+        Map<String, Double> previous = previousRun != null ? readCsv(previousRun) : new HashMap<>();
+        List<String> csv = new ArrayList<>();
+        csv.add(CSV_HEADER);
+
+        StdOut.printf("%-32s %6s %12s %12s\n", "benchmark", "n", "ns/op", "vs -compare");
+        for (int n : sizes) {
+            Percolation p = new Percolation(n);
+            for (Order order : Order.values()) {
+                int[] rows = new int[n * n];
+                int[] cols = new int[n * n];
+                order(order, n, rows, cols);
+                String suffix = "/" + order.name().toLowerCase().replace('_', '-');
+
+                report("open" + suffix, n, measure(() -> openAll(p, rows, cols)), previous, csv);
+                report("open+percolates" + suffix, n, measure(() -> openUntilPercolates(p, rows, cols)),
+                        previous, csv);
+                openUntilPercolates(p, rows, cols);
+                report("isFull" + suffix, n, measure(() -> queryFull(p, rows, cols)), previous, csv);
+                report("fullMask" + suffix, n, measure(() -> fullMask(p)), previous, csv);
+            }
+
+            PercolationStats.Worker worker = new PercolationStats.Worker(n);
+            worker.start(n, PercolationStats.Mode.PERMUTATION, null);
+            report("experiment/permutation", n, measure(() -> experiment(worker, n)), previous, csv);
+
+            int[] rows = new int[n * n];
+            int[] cols = new int[n * n];
+            order(Order.RANDOM, n, rows, cols);
+            report("open+isFull/packed", n, measure(() -> run(p, rows, cols)), previous, csv);
+            report("open+isFull/baseline", n, measure(() -> run(new BaselinePercolation(n), rows, cols)),
+                    previous, csv);
+        }
+
+        if (sink == 0) {
+            StdOut.println("no full sites");
+        }
+
+        if (out != null) {
+            try {
+                Files.write(out, csv, StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // opens all sites from an empty grid; returns number of operations
+    private static int openAll(Percolation p, int[] rows, int[] cols) {
+        p.reset();
+        for (int i = 0; i < rows.length; i++) {
+            p.open(rows[i], cols[i]);
+        }
+        sink += p.numberOfOpenSites();
+        return rows.length;
+    }
+
+    // opens sites checking percolates after each one, as an experiment does;
+    // returns number of operations
+    private static int openUntilPercolates(Percolation p, int[] rows, int[] cols) {
+        p.reset();
+        int k = 0;
+        do {
+            p.open(rows[k], cols[k]);
+            k++;
+        } while (!p.percolates());
+        sink += k;
+        return k;
+    }
+
+    // queries isFull for every site; returns number of operations
+    private static int queryFull(Percolation p, int[] rows, int[] cols) {
+        int full = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (p.isFull(rows[i], cols[i])) {
+                full++;
+            }
+        }
+        sink += full;
+        return rows.length;
+    }
+
+    // fullness of every site in one pass; returns number of sites
+    private static int fullMask(Percolation p) {
+        boolean[] mask = p.fullMask();
+        sink += mask.length;
+        return mask.length;
+    }
+
+    // PercolationStats experiment in PERMUTATION mode, the code its workers run,
+    // with a fixed seed per iteration; returns 1, times are per trial
+    private static int experiment(PercolationStats.Worker worker, int n) {
+        double threshold = PercolationStats.experiment(worker, n, new SplittableRandom(SEED),
+                PercolationStats.Mode.PERMUTATION);
+        sink += (long) (threshold * n * n);
+        return 1;
+    }
+
+    // opens sites until percolation, then queries isFull for every cell;
+    // returns number of operations
+    private static int run(Percolation p, int[] rows, int[] cols) {
+        p.reset();
+        int k = 0;
+        while (!p.percolates()) {
+            p.open(rows[k], cols[k]);
+            k++;
+        }
+        int full = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (p.isFull(rows[i], cols[i])) {
+                full++;
+            }
+        }
+        sink += full;
+        return k + rows.length;
+    }
+
+    private static int run(BaselinePercolation p, int[] rows, int[] cols) {
+        int k = 0;
+        while (!p.percolates()) {
+            p.open(rows[k], cols[k]);
+            k++;
+        }
+        int full = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (p.isFull(rows[i], cols[i])) {
+                full++;
+            }
+        }
+        sink += full;
+        return k + rows.length;
+    }
+
+    // fixed order of all sites, shared by the compared implementations
+    private static void order(Order order, int n, int[] rows, int[] cols) {
+        int[] sites = new int[n * n];
+        if (order == Order.ADVERSARIAL) {
+            int k = 0;
+            for (int colour = 0; colour < 2; colour++) {
+                for (int row = colour == 0 ? 0 : n - 1; row >= 0 && row < n; row += colour == 0 ? 1 : -1) {
+                    for (int col = 0; col < n; col++) {
+                        if ((row + col) % 2 == colour) {
+                            sites[k++] = row * n + col;
+                        }
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < sites.length; i++) {
+                sites[i] = i;
+            }
+        }
+
+        if (order == Order.RANDOM) {
+            SplittableRandom random = new SplittableRandom(SEED);
+            for (int i = sites.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = sites[i];
+                sites[i] = sites[j];
+                sites[j] = t;
+            }
+        }
+
+        for (int i = 0; i < sites.length; i++) {
+            rows[i] = sites[i] / n + 1;
+            cols[i] = sites[i] % n + 1;
+        }
+    }
+
+    private interface Run {
+        int run();
+    }
+
+    // median time per operation in nanoseconds
+    private static double measure(Run run) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run.run();
+        }
+
+        double[] times = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            int operations = run.run();
+            times[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    private static void report(String name, int n, double nanos, Map<String, Double> previous, List<String> csv) {
+        String key = name + "," + n;
+        Double old = previous.get(key);
+        if (old != null) {
+            StdOut.printf("%-32s %6d %12.2f %11.2fx\n", name, n, nanos, nanos / old);
+        } else {
+            StdOut.printf("%-32s %6d %12.2f\n", name, n, nanos);
+        }
+        csv.add(key + "," + nanos);
+    }
+
+    // ns/op by "benchmark,n" from a CSV written with -out
+    private static Map<String, Double> readCsv(Path file) {
+        Map<String, Double> results = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line = reader.readLine();
+            if (!CSV_HEADER.equals(line)) {
+                throw new IllegalArgumentException(file + " is not a benchmark result file");
+            }
+            while ((line = reader.readLine()) != null) {
+                int comma = line.lastIndexOf(',');
+                results.put(line.substring(0, comma), Double.parseDouble(line.substring(comma + 1)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    // Percolation as it was before the packed union-find:
+    // byte flags per site plus a separate WeightedQuickUnionUF
+    private static final class BaselinePercolation {
+        private static final byte OPEN = 1;
+        private static final byte TOP_CONNECTED = 2;
+        private static final byte BOTTOM_CONNECTED = 4;
+        private static final byte PERCOLATED = TOP_CONNECTED | BOTTOM_CONNECTED;
+
+        private final int n;
+        private final byte[] state;
+        private final WeightedQuickUnionUF connections;
+        private boolean percolates;
+
+        BaselinePercolation(int n) {
+            this.n = n;
+            state = new byte[n * n];
+            connections = new WeightedQuickUnionUF(n * n);
+        }
+
+        void open(int row, int col) {
+            int siteId = (row - 1) * n + (col - 1);
+            if (state[siteId] != 0) {
+                return;
+            }
+
+            int siteState = OPEN;
+            if (row == 1) {
+                siteState = siteState | TOP_CONNECTED;
+            }
+            if (row == n) {
+                siteState = siteState | BOTTOM_CONNECTED;
+            }
+
+            for (int i = -3; i <= 3; i += 2) {
+                int y = row + i % 3;
+                int x = col + i / 2;
+                if (y >= 1 && y <= n && x >= 1 && x <= n) {
+                    int neighborId = (y - 1) * n + (x - 1);
+                    if (state[neighborId] != 0) {
+                        siteState = siteState | state[connections.find(neighborId)];
+                        connections.union(siteId, neighborId);
+                    }
+                }
+            }
+
+            byte newState = (byte) siteState;
+            state[siteId] = newState;
+            state[connections.find(siteId)] = newState;
+
+            if (!percolates) {
+                percolates = (siteState & PERCOLATED) == PERCOLATED;
+            }
+        }
+
+        boolean isFull(int row, int col) {
+            int siteId = (row - 1) * n + (col - 1);
+            return (state[connections.find(siteId)] & TOP_CONNECTED) == TOP_CONNECTED;
+        }
+
+        boolean percolates() {
+            return percolates;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac PercolationInput.java
+ *  Execution:     java PercolationInput
+ *                 java PercolationInput in/input50.txt
+ *                 java PercolationInput -convert in/input50.txt input50.bin
+ *
+ *  Loads percolation input files: n followed by (row, col) pairs of
+ *  sites to open, as read by PercolationVisualizer, or the same sites
+ *  in a compact binary form:
+ *    magic "PERC", version byte,
+ *    n and number of sites as unsigned varints,
+ *    site ids (row - 1) * n + (col - 1) as zigzag varints of the
+ *    difference to the previous id (the first one to 0).
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sites of a percolation input file as 0-based site ids, in file order.
+ * Files are memory-mapped and parsed byte by byte, without tokenizing into strings.
+ */
+public final class PercolationInput {
+
+    private static final int MAGIC = 0x50455243;
+    private static final int VERSION = 1;
+
+    // text files are mapped in windows of this many bytes, numbers may cross window borders
+    private static final int WINDOW = 1 << 30;
+
+    private final int n;
+    private final int[] siteIds;
+
+    private PercolationInput(int n, int[] siteIds) {
+        this.n = n;
+        this.siteIds = siteIds;
+    }
+
+    /**
+     * Get grid size.
+     */
+    public int n() {
+        return n;
+    }
+
+    /**
+     * Get number of sites in the file.
+     */
+    public int size() {
+        return siteIds.length;
+    }
+
+    /**
+     * Get ids of the sites to open, (row - 1) * n + (col - 1), in file order.
+     */
+    public int[] siteIds() {
+        return siteIds.clone();
+    }
+
+    /**
+     * Opens all sites of the file in one batch.
+     * @return see {@link Percolation#openAll(int[])}
+     */
+    public int openAll(Percolation perc) {
+        return perc.openAll(siteIds);
+    }
+
+    /**
+     * Reads text or binary input file, the format is recognized by the magic of binary files.
+     */
+    public static PercolationInput read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= 4) {
+                ByteBuffer head = ByteBuffer.allocate(4);
+                channel.read(head, 0);
+                if (head.getInt(0) == MAGIC) {
+                    return readBinary(channel, size);
+                }
+            }
+            return readText(channel, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // scans ASCII integers separated by anything else; the state of the number being read
+    // is kept across window borders
+    private static PercolationInput readText(FileChannel channel, long size) throws IOException {
+        int n = -1;
+        int[] ids = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, size / 8))];
+        int count = 0;
+        int row = 0;
+        boolean haveRow = false;
+
+        long value = 0;
+        boolean inNumber = false;
+        for (long position = 0; position <= size; position += WINDOW) {
+            long length = Math.min(WINDOW, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            // one extra iteration after the last byte ends the last number
+            boolean end = position + length == size;
+            int limit = (int) length + (end ? 1 : 0);
+            for (int i = 0; i < limit; i++) {
+                int b = i < length ? buffer.get(i) : ' ';
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    if (value > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("number at byte " + (position + i) + " is too large");
+                    }
+                    inNumber = true;
+                    continue;
+                }
+                if (b == '-' || b == '+') {
+                    throw new IllegalArgumentException("sign at byte " + (position + i));
+                }
+                if (!inNumber) {
+                    continue;
+                }
+
+                inNumber = false;
+                int number = (int) value;
+                value = 0;
+                if (n < 0) {
+                    if (number < 1) {
+                        throw new IllegalArgumentException("n must be greater than 0");
+                    }
+                    // site ids are ints, as in the binary format
+                    if ((long) number * number > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("n = " + number + " is too large");
+                    }
+                    n = number;
+                } else if (!haveRow) {
+                    row = number;
+                    haveRow = true;
+                } else {
+                    if (row < 1 || row > n || number < 1 || number > n) {
+                        throw new IllegalArgumentException("site (" + row + ", " + number + ") is out of the grid");
+                    }
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, (int) Math.min(Integer.MAX_VALUE - 8, 2L * ids.length));
+                    }
+                    ids[count++] = (row - 1) * n + (number - 1);
+                    haveRow = false;
+                }
+            }
+            if (end) {
+                break;
+            }
+        }
+
+        if (n < 0) {
+            throw new IllegalArgumentException("grid size expected");
+        }
+        if (haveRow) {
+            throw new IllegalArgumentException("column of the last site expected");
+        }
+        return new PercolationInput(n, Arrays.copyOf(ids, count));
+    }
+
+    private static PercolationInput readBinary(FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("binary file is too large");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.position(4);
+        if (buffer.get() != VERSION) {
+            throw new IllegalArgumentException("unknown version of binary file");
+        }
+
+        long n = readVarint(buffer);
+        long count = readVarint(buffer);
+        if (n < 1 || n * n > Integer.MAX_VALUE || count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("invalid binary file header");
+        }
+
+        int[] ids = new int[(int) count];
+        long previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            long zigzag = readVarint(buffer);
+            long id = previous + ((zigzag >>> 1) ^ -(zigzag & 1));
+            if (id < 0 || id >= n * n) {
+                throw new IllegalArgumentException("site id " + id + " is out of the grid");
+            }
+            ids[i] = (int) id;
+            previous = id;
+        }
+        return new PercolationInput((int) n, ids);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IllegalArgumentException("binary file is truncated");
+            }
+            int b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("invalid varint in binary file");
+    }
+
+    /**
+     * Writes the sites in the binary format.
+     */
+    public void writeBinary(Path file) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeByte(VERSION);
+            writeVarint(out, n);
+            writeVarint(out, siteIds.length);
+            long previous = 0;
+            for (int id : siteIds) {
+                long delta = id - previous;
+                writeVarint(out, (delta << 1) ^ (delta >> 63));
+                previous = id;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // unit tests, loading or converting the given file
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "-convert".equals(args[0])) {
+            PercolationInput input = read(Paths.get(args[1]));
+            input.writeBinary(Paths.get(args[2]));
+            StdOut.printf("%d sites, %d -> %d bytes\n", input.size(),
+                    Files.size(Paths.get(args[1])), Files.size(Paths.get(args[2])));
+            return;
+        }
+        if (args.length == 1) {
+            long start = System.nanoTime();
+            PercolationInput input = read(Paths.get(args[0]));
+            long loaded = System.nanoTime();
+            Percolation perc = new Percolation(input.n());
+            int moment = input.openAll(perc);
+            long opened = System.nanoTime();
+            StdOut.printf("n %d, %d sites, load %.3f s, open %.3f s\n", input.n(), input.size(),
+                    (loaded - start) / 1e9, (opened - loaded) / 1e9);
+            StdOut.println(moment >= 0 ? "percolates after " + (moment + 1) + " sites" : "does not percolate");
+            return;
+        }
+
+        Path text = Files.createTempFile("percolation", ".txt");
+        Path binary = Files.createTempFile("percolation", ".bin");
+        try {
+            Files.write(text, "3\n 1 2\n2   2\r\n3 2 1 3".getBytes(StandardCharsets.US_ASCII));
+            PercolationInput input = read(text);
+            StdOut.printf("text is parsed %s\n", input.n() == 3
+                    && Arrays.equals(input.siteIds(), new int[]{1, 4, 7, 2}) ? "OK" : "FAIL");
+
+            Percolation perc = new Percolation(3);
+            StdOut.printf("batch open %s\n", input.openAll(perc) == 2 && perc.numberOfOpenSites() == 4 ? "OK" : "FAIL");
+
+            input.writeBinary(binary);
+            PercolationInput decoded = read(binary);
+            StdOut.printf("binary round trip %s\n", decoded.n() == 3
+                    && Arrays.equals(decoded.siteIds(), input.siteIds()) ? "OK" : "FAIL");
+
+            Files.write(text, "3\n1 2\n4 1\n".getBytes(StandardCharsets.US_ASCII));
+            boolean thrown = false;
+            try {
+                read(text);
+            } catch (IllegalArgumentException e) {
+                thrown = true;
+            }
+            StdOut.printf("site out of the grid is rejected %s\n", thrown ? "OK" : "FAIL");
+
+            Files.write(text, "3\n1 2\n2".getBytes(StandardCharsets.US_ASCII));
+            thrown = false;
+            try {
+                read(text);
+            } catch (IllegalArgumentException e) {
+                thrown = true;
+            }
+            StdOut.printf("unpaired row is rejected %s\n", thrown ? "OK" : "FAIL");
+
+            Files.write(text, "46341\n46341 46341\n".getBytes(StandardCharsets.US_ASCII));
+            thrown = false;
+            try {
+                read(text);
+            } catch (IllegalArgumentException e) {
+                thrown = true;
+            }
+            StdOut.printf("too large grid is rejected %s\n", thrown ? "OK" : "FAIL");
+        } finally {
+            Files.delete(text);
+            Files.delete(binary);
+        }
+    }
+}
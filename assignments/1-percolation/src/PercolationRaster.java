@@ -0,0 +1,264 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac PercolationRaster.java
+ *  Execution:     java PercolationRaster
+ *  Dependencies:  Percolation.java
+ *
+ *  Raster rendering of large percolation systems, one pixel per site,
+ *  used by PercolationVisualizer and InteractivePercolationVisualizer
+ *  for grids that are too large to draw site by site with StdDraw.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.reflect.InvocationTargetException;
+import java.util.SplittableRandom;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Keeps an image of an n-by-n percolation system and updates it in place:
+ * every update compares the state of each site with the one last drawn
+ * and rewrites the pixels of changed sites only, repainting just the rows between
+ * the first and the last changed one. The window is optional, so images can
+ * also be rendered without a display.
+ */
+public class PercolationRaster {
+
+    // same colours as PercolationVisualizer (StdDraw BLACK, WHITE and BOOK_LIGHT_BLUE)
+    private static final int BLOCKED_RGB = 0x000000;
+    private static final int OPEN_RGB = 0xffffff;
+    private static final int FULL_RGB = 0x67c6f3;
+
+    // site states are component flags of open sites, with bottom connection ignored
+    private static final int OPEN = PackedUnionFind.PRESENT;
+    private static final int FULL = PackedUnionFind.PRESENT | PackedUnionFind.TOP_CONNECTED;
+
+    // frame(...) draws at most this often
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    // frames are also spaced by this many durations of the last update,
+    // so drawing takes at most a third of the caller's time
+    private static final int FRAME_SPACING = 2;
+
+    private final int n;
+
+    private final BufferedImage image;
+
+    // pixels of the image, row-major like site ids
+    private final int[] pixels;
+
+    // state of every site as it is drawn now
+    private final byte[] shown;
+
+    private long lastFrame;
+    private long lastUpdateNanos;
+
+    private JFrame window;
+    private Panel panel;
+
+    /**
+     * Creates image of n-by-n grid with all sites blocked.
+     * @param n
+     */
+    public PercolationRaster(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        this.n = n;
+        image = new BufferedImage(n, n, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        shown = new byte[n * n];
+        lastFrame = System.nanoTime() - FRAME_NANOS;
+    }
+
+    /**
+     * Get image with one pixel per site, site (1, 1) in the upper left corner.
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Redraws sites changed since the last update.
+     * @return number of rows that had changed sites
+     */
+    public int update(Percolation perc) {
+        long start = System.nanoTime();
+        byte[] flags = perc.componentFlags();
+
+        int first = -1;
+        int last = -1;
+        int dirtyRows = 0;
+        synchronized (image) {
+            for (int row = 0; row < n; row++) {
+                boolean dirty = false;
+                for (int siteId = row * n; siteId < row * n + n; siteId++) {
+                    byte state = (byte) (flags[siteId] & FULL);
+                    if (state != shown[siteId]) {
+                        shown[siteId] = state;
+                        pixels[siteId] = state == FULL ? FULL_RGB : state == OPEN ? OPEN_RGB : BLOCKED_RGB;
+                        dirty = true;
+                    }
+                }
+                if (dirty) {
+                    dirtyRows++;
+                    last = row;
+                    if (first < 0) {
+                        first = row;
+                    }
+                }
+            }
+        }
+
+        if (panel != null) {
+            if (first >= 0) {
+                panel.repaintRows(first, last);
+            }
+            int opened = perc.numberOfOpenSites();
+            String status = opened + " open sites, " + (perc.percolates() ? "percolates" : "does not percolate");
+            SwingUtilities.invokeLater(() -> window.setTitle(status));
+        }
+        lastFrame = System.nanoTime();
+        lastUpdateNanos = lastFrame - start;
+        return dirtyRows;
+    }
+
+    /**
+     * Updates the image unless the previous update was less than 1/60 s ago
+     * (or less than twice its own duration ago, for grids that take longer to update),
+     * so the caller can ask for a frame after every opened site.
+     * @return true if the image was updated
+     */
+    public boolean frame(Percolation perc) {
+        if (System.nanoTime() - lastFrame < Math.max(FRAME_NANOS, FRAME_SPACING * lastUpdateNanos)) {
+            return false;
+        }
+        update(perc);
+        return true;
+    }
+
+    /**
+     * Shows the image in a window scaled to fit the screen.
+     */
+    public void show() {
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        int scale = Math.max(1, Math.min(screen.width, screen.height) * 3 / 4 / n);
+        int side = Math.min(n * scale, Math.min(screen.width, screen.height) * 3 / 4);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                panel = new Panel(side);
+                window = new JFrame();
+                window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                window.setResizable(false);
+                window.add(panel);
+                window.pack();
+                window.setVisible(true);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Calls consumer with (row, col) of every site clicked in the window, on the event thread.
+     */
+    public void onClick(Percolation.SiteConsumer consumer) {
+        if (panel == null) {
+            throw new IllegalStateException("window is not shown");
+        }
+
+        SwingUtilities.invokeLater(() -> panel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int row = e.getY() * n / panel.getHeight() + 1;
+                int col = e.getX() * n / panel.getWidth() + 1;
+                if (row >= 1 && row <= n && col >= 1 && col <= n) {
+                    consumer.accept(row, col);
+                }
+            }
+        }));
+    }
+
+    // scales the image to the panel, nearest neighbour keeps sites sharp
+    private final class Panel extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        private final int side;
+
+        Panel(int side) {
+            this.side = side;
+            setPreferredSize(new Dimension(side, side));
+        }
+
+        // repaints the panel area of rows first .. last, 0-based
+        void repaintRows(int first, int last) {
+            int top = first * side / n;
+            int bottom = ((last + 1) * side + n - 1) / n;
+            repaint(0, top, side, bottom - top);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            synchronized (image) {
+                g.drawImage(image, 0, 0, side, side, null);
+            }
+        }
+    }
+
+    // unit tests, without a window
+    public static void main(String[] args) {
+        Percolation p = new Percolation(4);
+        PercolationRaster raster = new PercolationRaster(4);
+        StdOut.printf("blocked grid is clean %s\n", raster.update(p) == 0 ? "OK" : "FAIL");
+
+        p.open(3, 2);
+        StdOut.printf("only opened row is dirty %s\n", raster.update(p) == 1 ? "OK" : "FAIL");
+        StdOut.printf("open site is white %s\n",
+                (raster.image().getRGB(1, 2) & 0xffffff) == OPEN_RGB ? "OK" : "FAIL");
+
+        p.open(1, 2);
+        p.open(2, 2);
+        StdOut.printf("rows that became full are dirty %s\n", raster.update(p) == 3 ? "OK" : "FAIL");
+        StdOut.printf("full site is blue %s\n",
+                (raster.image().getRGB(1, 2) & 0xffffff) == FULL_RGB ? "OK" : "FAIL");
+        StdOut.printf("blocked site is black %s\n",
+                (raster.image().getRGB(0, 0) & 0xffffff) == BLOCKED_RGB ? "OK" : "FAIL");
+        StdOut.printf("unchanged grid is clean %s\n", raster.update(p) == 0 ? "OK" : "FAIL");
+
+        StdOut.printf("frames are throttled %s\n", !raster.frame(p) ? "OK" : "FAIL");
+
+        // same pixels as drawing from scratch
+        int n = 300;
+        p = new Percolation(n);
+        raster = new PercolationRaster(n);
+        SplittableRandom random = new SplittableRandom(17);
+        while (!p.percolates()) {
+            p.open(1 + random.nextInt(n), 1 + random.nextInt(n));
+            raster.frame(p);
+        }
+        raster.update(p);
+        boolean same = true;
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                int expected = p.isFull(row, col) ? FULL_RGB : p.isOpen(row, col) ? OPEN_RGB : BLOCKED_RGB;
+                same = same && (raster.image().getRGB(col - 1, row - 1) & 0xffffff) == expected;
+            }
+        }
+        StdOut.printf("incremental image is exact %s\n", same ? "OK" : "FAIL");
+    }
+}
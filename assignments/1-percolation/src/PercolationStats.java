@@ -5,15 +5,53 @@
  *
  *  Compilation:   javac PercolationStats.java
  *  Execution:     java PercolationStats 20 100
+ *                 java PercolationStats 2000 100000 42 64 [RANDOM_SITES|PERMUTATION|NEWMAN_ZIFF]
+ *                 java PercolationStats 2000 0 42 64 PERMUTATION 0.00005 3600
+ *                   (t = 0: until the 95% confidence interval half-width is below 0.00005
+ *                   or an hour has passed)
+ *                 java PercolationStats -checkpoint run.bin 2000 100000 42 64 PERMUTATION
+ *                   (resumes from run.bin if it exists)
+ *                 java PercolationStats -test
  *
  *  http://coursera.cs.princeton.edu/algs4/assignments/percolation.html
  *
  *----------------------------------------------------------------*/
 
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
 /**
  * Provides percolation statistics tests on NxN grid structure
  */
@@ -23,30 +61,169 @@ public final class PercolationStats {
     private final double stddev;
     private final double confidenceLo;
     private final double confidenceHi;
+    private final int trials;
+
+    // Newman-Ziff observables averaged over trials, indexed by number of open sites;
+    // null unless trials ran in NEWMAN_ZIFF mode
+    private final double[] percolation;
+    private final double[] largestCluster;
+    private final double[] clusters;
+
+    // binomial weights below this fraction of the peak weight are ignored
+    private static final double NEGLIGIBLE_WEIGHT = 1e-15;
+
+    // precision and time rules are checked between batches of a multiple of this size;
+    // the sizes do not depend on the number of threads, so neither do the results
+    private static final int TRIALS_PER_BATCH = 256;
+
+    // with precision or time rules, a batch has up to this fraction of the trials done so far,
+    // so there are few batches in long runs and at most this many trials too many
+    private static final int BATCH_GROWTH = 8;
+
+    // order is restored by undoing the steps of a trial that opened less than
+    // this fraction of sites, and by refilling it otherwise
+    private static final int UNDO_FRACTION = 16;
+
+    // confidence interval is not trusted before this many trials
+    private static final int MIN_TRIALS = 30;
+
+    // checkpoints are written between batches, at most this often
+    private static final long CHECKPOINT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int CHECKPOINT_MAGIC = 0x5053434b;
+    private static final int CHECKPOINT_VERSION = 1;
+
+    /**
+     * Order in which an experiment opens sites.
+     */
+    public enum Mode {
+        // uniformly random (row, col) draws, already open sites are drawn again
+        RANDOM_SITES,
+        // random permutation of sites, every draw opens a new site
+        PERMUTATION,
+        // random permutation of sites opened to the end in a single sweep,
+        // recording observables at every number of open sites; sums over trials
+        // take 3 * 8 * (n * n + 1) bytes, shared by all threads, and the averages
+        // as many again, about 96 MB each at n = 2000
+        NEWMAN_ZIFF
+    }
 
     // perform trials independent experiments on an n-by-n grid
     public PercolationStats(int n, int trials) {
+        this(sequentialTrials(n, trials));
+    }
 
-        if (n < 1) {
-            throw new IllegalArgumentException("n must be greater than 0");
-        }
-        
-        if (trials < 1) {
-            throw new IllegalArgumentException("trials must be greater than 0");
-        }
+    /**
+     * Performs trials independent experiments on an n-by-n grid using a fork-join pool.
+     * Trial i draws from its own random stream derived from the master seed,
+     * so results for a given seed do not depend on the number of threads.
+     * @param n grid size
+     * @param trials number of experiments
+     * @param seed master seed
+     * @param threads parallelism level of the pool
+     */
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, Mode.RANDOM_SITES);
+    }
 
-        double[] thresholds = new double[trials];
+    /**
+     * Same as {@link #PercolationStats(int, int, long, int)} with a choice of site opening order.
+     * @param n grid size
+     * @param trials number of experiments
+     * @param seed master seed
+     * @param threads parallelism level of the pool
+     * @param mode site opening order
+     */
+    public PercolationStats(int n, int trials, long seed, int threads, Mode mode) {
+        this(withPool(threads, pool -> parallelTrials(n, seed, pool, mode,
+                new StoppingRule(trials, 0, 0, new RunningStats()), null, new WorkerCache())));
+    }
 
-        for (int i = 0; i < trials; i++) {
-            thresholds[i] = experiment(n);
+    /**
+     * Same as {@link #PercolationStats(int, int, long, int, Mode)}, saving the progress
+     * to a checkpoint file every minute and at the end. If the file exists, the run resumes
+     * from it and gives bit-identical results to an uninterrupted run.
+     * The file stores the statistics so far, the number of completed trials
+     * (trial i always draws from the i-th random stream of the seed)
+     * and the Newman-Ziff sums.
+     * @param n grid size
+     * @param trials total number of experiments, including the resumed ones
+     * @param seed master seed, must match the checkpoint
+     * @param threads parallelism level of the pool
+     * @param mode site opening order, must match the checkpoint
+     * @param checkpoint checkpoint file
+     */
+    public PercolationStats(int n, int trials, long seed, int threads, Mode mode, Path checkpoint) {
+        this(withPool(threads, pool -> parallelTrials(n, seed, pool, mode,
+                new StoppingRule(trials, 0, 0, new RunningStats()), checkpoint, new WorkerCache())));
+    }
+
+    /**
+     * Performs experiments until the half-width of the 95% confidence interval
+     * drops below halfWidth or the time budget would be exceeded by the next batch of trials.
+     * The rules are checked between batches of multiples of 256 trials, each at most an eighth
+     * of the trials done before it, so for a given seed the number of trials does not depend
+     * on the number of threads unless the time budget stops the run.
+     * @param n grid size
+     * @param seed master seed
+     * @param threads parallelism level of the pool
+     * @param mode site opening order
+     * @param halfWidth target half-width of the confidence interval
+     * @param maxMillis time budget in milliseconds, 0 for none
+     * @param progress empty accumulator that receives every threshold as trials complete,
+     *                 other threads may read interim statistics from it; may be null
+     */
+    public PercolationStats(int n, long seed, int threads, Mode mode,
+                            double halfWidth, long maxMillis, RunningStats progress) {
+        this(withPool(threads, pool -> parallelTrials(n, seed, pool, mode,
+                new StoppingRule(Integer.MAX_VALUE, halfWidth, maxMillis,
+                        progress != null ? progress : new RunningStats()), null, new WorkerCache())));
+    }
+
+    /**
+     * Same as {@link #PercolationStats(int, int, long, int, Mode)} on a pool shared by several runs,
+     * taking grids and buffers from the cache of their driver and giving them back at the end,
+     * see {@link PercolationSweep}.
+     */
+    PercolationStats(int n, int trials, long seed, ForkJoinPool pool, Mode mode, WorkerCache workers) {
+        this(parallelTrials(n, seed, pool, mode, new StoppingRule(trials, 0, 0, new RunningStats()), null,
+                workers));
+    }
+
+    private PercolationStats(Trials results) {
+        RunningStats stats = results.stats;
+        trials = (int) stats.count();
+
+        mean = stats.mean();
+        stddev = stats.stddev();
+        confidenceLo = stats.confidenceLo();
+        confidenceHi = stats.confidenceHi();
+
+        if (results.sweeps == null) {
+            percolation = null;
+            largestCluster = null;
+            clusters = null;
+            return;
         }
 
-        mean = StdStats.mean(thresholds);
-        stddev = StdStats.stddev(thresholds);
+        Sweeps sweeps = results.sweeps;
+        int sites = sweeps.crossings.length - 1;
+        percolation = new double[sites + 1];
+        largestCluster = new double[sites + 1];
+        clusters = new double[sites + 1];
 
-        double d = 1.96 * stddev / Math.sqrt(trials);
-        confidenceLo = mean - d;
-        confidenceHi = mean + d;
+        long percolated = 0;
+        for (int k = 0; k <= sites; k++) {
+            percolated += sweeps.crossings[k];
+            percolation[k] = (double) percolated / trials;
+            largestCluster[k] = (double) sweeps.largestCluster[k] / trials;
+            clusters[k] = (double) sweeps.clusters[k] / trials;
+        }
+    }
+
+    // number of experiments performed
+    public int trials() {
+        return trials;
     }
 
     // sample mean of percolation threshold
@@ -69,8 +246,229 @@ public final class PercolationStats {
         return confidenceHi;
     }
 
-    private double experiment(int n) {
+    /**
+     * Probability that the system percolates when every site is open with probability p.
+     * Available in NEWMAN_ZIFF mode only.
+     */
+    public double percolationProbability(double p) {
+        return canonical(percolation, p);
+    }
+
+    /**
+     * Mean number of sites in the largest cluster when every site is open with probability p.
+     * Available in NEWMAN_ZIFF mode only.
+     */
+    public double largestClusterSize(double p) {
+        return canonical(largestCluster, p);
+    }
+
+    /**
+     * Mean number of clusters when every site is open with probability p.
+     * Available in NEWMAN_ZIFF mode only.
+     */
+    public double numberOfClusters(double p) {
+        return canonical(clusters, p);
+    }
+
+    // Converts an observable measured at fixed numbers of open sites k
+    // into its value at site probability p by weighting with binomial(N, k, p).
+    // Weights are built outwards from the peak with the ratio recurrence,
+    // so only the O(sqrt(N)) non-negligible terms are visited.
+    private static double canonical(double[] observable, double p) {
+        if (observable == null) {
+            throw new IllegalStateException("observable is recorded in NEWMAN_ZIFF mode only");
+        }
+
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException("p must be in [0, 1]");
+        }
+
+        int sites = observable.length - 1;
+        if (p == 0) {
+            return observable[0];
+        }
+        if (p == 1) {
+            return observable[sites];
+        }
+
+        int peak = Math.min(sites, (int) (p * (sites + 1)));
+        double odds = p / (1 - p);
+
+        double total = 1;
+        double sum = observable[peak];
+
+        double weight = 1;
+        for (int k = peak; k < sites && weight > NEGLIGIBLE_WEIGHT; k++) {
+            weight *= odds * (sites - k) / (k + 1);
+            total += weight;
+            sum += weight * observable[k + 1];
+        }
+
+        weight = 1;
+        for (int k = peak; k > 0 && weight > NEGLIGIBLE_WEIGHT; k--) {
+            weight *= k / (odds * (sites - k + 1));
+            total += weight;
+            sum += weight * observable[k - 1];
+        }
+
+        return sum / total;
+    }
+
+    private static void validate(int n, int trials) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        // checked before n * n sized sweep sums are allocated, not only when a grid is
+        if ((long) n * n > PackedUnionFind.MAX_ELEMENTS) {
+            throw new IllegalArgumentException("n is too large");
+        }
+
+        if (trials < 1) {
+            throw new IllegalArgumentException("trials must be greater than 0");
+        }
+    }
+
+    private static Trials sequentialTrials(int n, int trials) {
+        validate(n, trials);
+
+        RunningStats stats = new RunningStats();
         Percolation p = new Percolation(n);
+
+        for (int i = 0; i < trials; i++) {
+            stats.add(experiment(p, n));
+        }
+
+        return new Trials(stats, null);
+    }
+
+    private static Trials withPool(int threads, Function<ForkJoinPool, Trials> run) {
+        ForkJoinPool pool = ParallelTrials.newPool(threads);
+        try {
+            return run.apply(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Trials parallelTrials(int n, long seed, ForkJoinPool pool, Mode mode, StoppingRule rule,
+                                         Path checkpoint, WorkerCache workers) {
+        validate(n, rule.maxTrials);
+
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+
+        RunningStats stats = rule.stats;
+        if (stats.count() != 0) {
+            throw new IllegalArgumentException("progress must be empty");
+        }
+
+        // sums of the resumed trials, workers add the new ones
+        Sweeps sweeps = mode == Mode.NEWMAN_ZIFF ? new Sweeps(n * n) : null;
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            readCheckpoint(checkpoint, n, seed, mode, stats, sweeps);
+        }
+
+        // every worker reuses its grid and buffers for all trials it runs in its thread,
+        // and belongs to this run only until the cache gets it back
+        Queue<Worker> taken = new ConcurrentLinkedQueue<>();
+        try (ParallelTrials<Worker> runner = new ParallelTrials<>(seed, pool, () -> {
+            Worker worker = workers.take(n);
+            taken.add(worker);
+            worker.start(n, mode, sweeps);
+            return worker;
+        }, (worker, random) -> experiment(worker, n, random, mode))) {
+
+            // only the current batch is kept, thresholds are folded in trial order,
+            // so batch boundaries and checkpoints do not change a single bit of the result
+            long start = System.nanoTime();
+            long saved = start;
+            long batchNanos = 0;
+            while (!rule.isMet(System.nanoTime() - start + batchNanos)) {
+                int batch = batchSize(rule, checkpoint != null, runner, stats.count());
+                long batchStart = System.nanoTime();
+                double[] thresholds = runner.run(stats.count(), batch);
+                batchNanos = System.nanoTime() - batchStart;
+
+                for (double threshold : thresholds) {
+                    stats.add(threshold);
+                }
+
+                if (checkpoint != null && System.nanoTime() - saved >= CHECKPOINT_NANOS) {
+                    writeCheckpoint(checkpoint, n, seed, mode, stats, sweeps);
+                    saved = System.nanoTime();
+                }
+            }
+        }
+        // only after a complete run, a worker left in the middle of a trial is not reused
+        workers.release(taken);
+
+        if (checkpoint != null) {
+            writeCheckpoint(checkpoint, n, seed, mode, stats, sweeps);
+        }
+        return new Trials(stats, sweeps);
+    }
+
+    // A fixed number of trials runs in one batch, or in batches that keep all threads busy
+    // if checkpoints are written between them; results are folded in trial order either way.
+    // Other rules are checked after batches whose sizes depend on the trials done only.
+    private static int batchSize(StoppingRule rule, boolean checkpointed, ParallelTrials<?> runner, long done) {
+        long remaining = rule.maxTrials - done;
+        long batch;
+        if (rule.isFixed()) {
+            batch = checkpointed ? Math.max(TRIALS_PER_BATCH, runner.fullBatch()) : remaining;
+        } else {
+            batch = Math.max(TRIALS_PER_BATCH, done / BATCH_GROWTH / TRIALS_PER_BATCH * TRIALS_PER_BATCH);
+        }
+        return (int) Math.min(batch, remaining);
+    }
+
+    // Checkpoint file, big-endian:
+    //   magic, version, n, mode ordinal     int
+    //   seed, completed trials              long
+    //   mean, m2                            double
+    //   Newman-Ziff sums, NEWMAN_ZIFF only  3 * (n * n + 1) unsigned varints
+    //   CRC32 of all of the above           long
+    // It is written to a temporary file first and then moved over the old one,
+    // so a crash while writing leaves the previous checkpoint intact.
+    private static void writeCheckpoint(Path checkpoint, int n, long seed, Mode mode,
+                                        RunningStats stats, Sweeps sweeps) {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream file = Channels.newOutputStream(channel);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(file, crc)));
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeInt(n);
+                out.writeInt(mode.ordinal());
+                out.writeLong(seed);
+                out.writeLong(stats.count());
+                out.writeDouble(stats.mean());
+                out.writeDouble(stats.m2());
+                if (sweeps != null) {
+                    writeVarints(out, sweeps.crossings);
+                    writeVarints(out, sweeps.largestCluster);
+                    writeVarints(out, sweeps.clusters);
+                }
+                out.flush();
+
+                // the checksum itself is not part of the checked bytes
+                new DataOutputStream(file).writeLong(crc.getValue());
+                channel.force(true);
+            }
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double experiment(Percolation p, int n) {
+        p.reset();
         do {
             int row = 1 + StdRandom.uniform(n);
             int col = 1 + StdRandom.uniform(n);
@@ -80,7 +478,356 @@ public final class PercolationStats {
         return (double) p.numberOfOpenSites() / (n * n);
     }
 
+    // one trial on the worker's grid, which start(n, mode) has prepared;
+    // package-private for PercolationBenchmark
+    static double experiment(Worker worker, int n, SplittableRandom random, Mode mode) {
+        Percolation p = worker.grid;
+        p.reset();
+        if (mode == Mode.PERMUTATION) {
+            openPermutation(p, worker.order, n * n, random);
+        } else if (mode == Mode.NEWMAN_ZIFF) {
+            return sweep(p, worker.order, n * n, random, worker);
+        } else {
+            do {
+                int row = 1 + random.nextInt(n);
+                int col = 1 + random.nextInt(n);
+                p.open(row, col);
+            } while (!p.percolates());
+        }
+
+        return (double) p.numberOfOpenSites() / (n * n);
+    }
+
+    // opens sites in random order until the system percolates,
+    // generating the permutation of the first sites entries of order incrementally
+    // (one Fisher-Yates step per site); order must be the identity, and is again on return
+    static void openPermutation(Percolation p, int[] order, int sites, SplittableRandom random) {
+        int k = 0;
+        do {
+            int j = k + random.nextInt(sites - k);
+            int siteId = order[j];
+            order[j] = order[k];
+            order[k] = siteId;
+            k++;
+            p.openSite(siteId);
+        } while (!p.percolates());
+
+        // the next trial must not depend on this one
+        restoreIdentity(order, k, sites);
+    }
+
+    // undoes k Fisher-Yates steps on the identity of the first sites entries of order.
+    // An entry past the first k was changed only by moving the site it held into the first k,
+    // so these sites find all of them in O(k); but each is a random write, about ten times
+    // a sequential one, so from k = sites / UNDO_FRACTION on, refilling all entries is faster
+    private static void restoreIdentity(int[] order, int k, int sites) {
+        if (k < sites / UNDO_FRACTION) {
+            for (int i = 0; i < k; i++) {
+                int siteId = order[i];
+                if (siteId >= k) {
+                    order[siteId] = siteId;
+                }
+                order[i] = i;
+            }
+            return;
+        }
+
+        for (int i = 0; i < sites; i++) {
+            order[i] = i;
+        }
+    }
+
+    // opens all sites of a random permutation, adding observables after every opened site
+    // to the sums of the run a block at a time; returns the fraction of open sites
+    // at which the system started to percolate
+    private static double sweep(Percolation p, int[] order, int sites, SplittableRandom random, Worker worker) {
+        int[] largestCluster = worker.largestCluster;
+        int[] clusters = worker.clusters;
+        int crossing = 0;
+        for (int blockStart = 0; blockStart <= sites; blockStart += Sweeps.BLOCK) {
+            int blockEnd = Math.min(blockStart + Sweeps.BLOCK, sites + 1);
+            // entries are indexed by number of open sites, there are no observables at 0
+            int from = Math.max(blockStart, 1);
+            for (int open = from; open < blockEnd; open++) {
+                int k = open - 1;
+                int j = k + random.nextInt(sites - k);
+                int siteId = order[j];
+                order[j] = order[k];
+                order[k] = siteId;
+                p.openSite(siteId);
+
+                largestCluster[open - blockStart] = p.largestClusterSize();
+                clusters[open - blockStart] = p.numberOfClusters();
+                if (crossing == 0 && p.percolates()) {
+                    crossing = open;
+                }
+            }
+            worker.sweeps.add(blockStart, from, blockEnd, largestCluster, clusters);
+        }
+        worker.sweeps.addCrossing(crossing);
+        restoreIdentity(order, sites, sites);
+
+        return (double) crossing / sites;
+    }
+
+    private static void readCheckpoint(Path checkpoint, int n, long seed, Mode mode,
+                                       RunningStats stats, Sweeps sweeps) {
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(checkpoint))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new IllegalArgumentException(checkpoint + " is not a checkpoint file");
+            }
+            if (in.readInt() != n || in.readInt() != mode.ordinal() || in.readLong() != seed) {
+                throw new IllegalArgumentException(checkpoint + " belongs to a run with another n, mode or seed");
+            }
+
+            long count = in.readLong();
+            double mean = in.readDouble();
+            double m2 = in.readDouble();
+            if (sweeps != null) {
+                readVarints(in, sweeps.crossings);
+                readVarints(in, sweeps.largestCluster);
+                readVarints(in, sweeps.clusters);
+            }
+
+            long expected = crc.getValue();
+            if (new DataInputStream(file).readLong() != expected || file.read() != -1) {
+                throw new IllegalArgumentException(checkpoint + " is corrupted");
+            }
+
+            stats.merge(new RunningStats(count, mean, m2));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // LEB128: 7 bits per byte, low bits first, high bit set on all bytes but the last
+    private static void writeVarints(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            while ((value & ~0x7fL) != 0) {
+                out.write((int) (value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    private static void readVarints(DataInputStream in, long[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            values[i] = value;
+        }
+    }
+
+    // per-thread experiment state; buffers are sized to the largest n seen,
+    // a run with a smaller n uses a prefix of them
+    static final class Worker {
+        private int n;
+        private final Percolation grid;
+
+        // identity between trials, so that a prefix of it is the identity for any n
+        private int[] order;
+
+        // sums of the run and observables of one block of the current sweep, NEWMAN_ZIFF only
+        private Sweeps sweeps;
+        private int[] largestCluster;
+        private int[] clusters;
+
+        Worker(int n) {
+            this.n = n;
+            grid = new Percolation(n);
+            order = identity(n * n);
+        }
+
+        // prepares the worker for a new run, adding to the given sums in NEWMAN_ZIFF mode
+        void start(int n, Mode mode, Sweeps sweeps) {
+            if (n != this.n) {
+                this.n = n;
+                grid.reset(n);
+                if (order.length < n * n) {
+                    order = identity(n * n);
+                }
+            }
+
+            this.sweeps = sweeps;
+            if (mode == Mode.NEWMAN_ZIFF && largestCluster == null) {
+                largestCluster = new int[Sweeps.BLOCK];
+                clusters = new int[Sweeps.BLOCK];
+            }
+        }
+    }
+
+    private static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Workers kept between the runs of one driver, such as PercolationSweep. A run takes
+     * the workers it needs and gives them back when it ends, so a worker belongs to one run
+     * at a time even if runs of the driver, or of other drivers, share pool threads.
+     */
+    static final class WorkerCache {
+        private final Queue<Worker> idle = new ConcurrentLinkedQueue<>();
+
+        // idle worker, resized by Worker.start, or a new one
+        Worker take(int n) {
+            Worker worker = idle.poll();
+            return worker != null ? worker : new Worker(n);
+        }
+
+        void release(Collection<Worker> workers) {
+            idle.addAll(workers);
+        }
+    }
+
+    // Newman-Ziff sums over trials, indexed by number of open sites, one set per run.
+    // Workers add a block of a trial at a time under the lock of the block, so memory
+    // does not grow with the number of threads, and workers in different blocks do not contend
+    private static final class Sweeps {
+        // entries per block, workers buffer this many observables of a sweep
+        static final int BLOCK = 4096;
+
+        // number of trials that started to percolate at k open sites
+        private final long[] crossings;
+        private final long[] largestCluster;
+        private final long[] clusters;
+
+        private final Object[] locks;
+
+        Sweeps(int sites) {
+            crossings = new long[sites + 1];
+            largestCluster = new long[sites + 1];
+            clusters = new long[sites + 1];
+            locks = new Object[sites / BLOCK + 1];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        // adds observables of entries from .. to - 1 of the block at blockStart,
+        // found at the same offsets from blockStart in the buffers
+        void add(int blockStart, int from, int to, int[] largestClusterBlock, int[] clustersBlock) {
+            synchronized (locks[blockStart / BLOCK]) {
+                for (int k = from; k < to; k++) {
+                    largestCluster[k] += largestClusterBlock[k - blockStart];
+                    clusters[k] += clustersBlock[k - blockStart];
+                }
+            }
+        }
+
+        void addCrossing(int k) {
+            synchronized (locks[k / BLOCK]) {
+                crossings[k]++;
+            }
+        }
+    }
+
+    // statistics of thresholds plus optional Newman-Ziff sums
+    private static final class Trials {
+        private final RunningStats stats;
+        private final Sweeps sweeps;
+
+        Trials(RunningStats stats, Sweeps sweeps) {
+            this.stats = stats;
+            this.sweeps = sweeps;
+        }
+    }
+
+    // when parallel trials stop: after maxTrials trials, once the confidence interval
+    // is narrow enough, or when the next batch would exceed the time budget
+    private static final class StoppingRule {
+        private final int maxTrials;
+        private final double halfWidth;
+        private final long maxNanos;
+        private final RunningStats stats;
+
+        StoppingRule(int maxTrials, double halfWidth, long maxMillis, RunningStats stats) {
+            if (!(halfWidth >= 0)) {
+                throw new IllegalArgumentException("halfWidth must not be negative");
+            }
+
+            if (maxMillis < 0) {
+                throw new IllegalArgumentException("maxMillis must not be negative");
+            }
+
+            if (halfWidth == 0 && maxMillis == 0 && maxTrials == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("halfWidth or maxMillis must be positive");
+            }
+
+            this.maxTrials = maxTrials;
+            this.halfWidth = halfWidth;
+            this.maxNanos = maxMillis * 1_000_000;
+            this.stats = stats;
+        }
+
+        // only the number of trials can stop the run
+        boolean isFixed() {
+            return halfWidth == 0 && maxNanos == 0;
+        }
+
+        // expectedNanos is the elapsed time plus the duration of the last batch
+        boolean isMet(long expectedNanos) {
+            long count = stats.count();
+            if (count >= maxTrials) {
+                return true;
+            }
+
+            if (count >= MIN_TRIALS && stats.halfWidth() < halfWidth) {
+                return true;
+            }
+
+            return maxNanos > 0 && expectedNanos > maxNanos;
+        }
+    }
+
+    // runs until precise enough, printing interim statistics every 10 seconds
+    private static PercolationStats untilPrecise(int n, long seed, int threads, Mode mode,
+                                                 double halfWidth, long maxMillis) {
+        RunningStats progress = new RunningStats();
+        Thread reporter = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(10_000);
+                    StdOut.printf("  %d trials, mean %.8f +- %.8f\n",
+                            progress.count(), progress.mean(), progress.halfWidth());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reporter.setDaemon(true);
+        reporter.start();
+        try {
+            return new PercolationStats(n, seed, threads, mode, halfWidth, maxMillis, progress);
+        } finally {
+            reporter.interrupt();
+        }
+    }
+
     public static void main(String[] args) {
+        if (args.length == 1 && "-test".equals(args[0])) {
+            test();
+            return;
+        }
+
+        Path checkpoint = null;
+        if (args.length > 1 && "-checkpoint".equals(args[0])) {
+            checkpoint = Paths.get(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+
         if (args.length < 2) {
             StdOut.println("Two arguments of integer type expected");
             return;
@@ -89,10 +836,182 @@ public final class PercolationStats {
         int n = Integer.parseInt(args[0]);
         int t = Integer.parseInt(args[1]);
 
-        PercolationStats stats = new PercolationStats(n, t);
+        // a checkpoint is only valid for the seed it was written with, and for a fixed number of trials
+        if (checkpoint != null && (args.length < 3 || t <= 0)) {
+            StdOut.println("Usage: java PercolationStats -checkpoint file n trials seed [threads] [mode], trials > 0");
+            return;
+        }
+
+        PercolationStats stats;
+        if (args.length < 3) {
+            stats = new PercolationStats(n, t);
+        } else {
+            long seed = Long.parseLong(args[2]);
+            int threads = args.length > 3
+                    ? Integer.parseInt(args[3])
+                    : Runtime.getRuntime().availableProcessors();
+            Mode mode = args.length > 4 ? Mode.valueOf(args[4]) : Mode.RANDOM_SITES;
+            if (checkpoint != null) {
+                stats = new PercolationStats(n, t, seed, threads, mode, checkpoint);
+            } else if (t > 0) {
+                stats = new PercolationStats(n, t, seed, threads, mode);
+            } else {
+                double halfWidth = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+                long maxMillis = args.length > 6 ? Long.parseLong(args[6]) * 1000 : 0;
+                stats = untilPrecise(n, seed, threads, mode, halfWidth, maxMillis);
+            }
+        }
+
+        StdOut.printf("trials                  = %d\n", stats.trials());
+
         StdOut.printf("mean                    = %.16f\n", stats.mean());
         StdOut.printf("stdev                   = %.16f\n", stats.stddev());
         StdOut.printf("95%% confidence interval = [%.16f, %.16f]\n",
                 stats.confidenceLo(), stats.confidenceHi());
+
+        if (stats.percolation != null) {
+            StdOut.println();
+            StdOut.printf("%-8s %-12s %-16s %s\n", "p", "P(p)", "largest cluster", "clusters");
+            for (int i = 50; i <= 70; i += 2) {
+                double p = i / 100.0;
+                StdOut.printf("%-8.2f %-12.6f %-16.2f %.2f\n", p,
+                        stats.percolationProbability(p), stats.largestClusterSize(p), stats.numberOfClusters(p));
+            }
+        }
+    }
+
+    // unit tests of the parallel modes, on grids small enough to run in seconds
+    private static void test() {
+        StdOut.println("validation:");
+        for (int n : new int[]{23171, 46341}) {
+            StdOut.printf("\tn = %d rejected before allocating %s\n", n, rejects(n) ? "OK" : "FAIL");
+        }
+
+        StdOut.println("thread count:");
+        for (Mode mode : Mode.values()) {
+            PercolationStats one = new PercolationStats(24, 600, 42, 1, mode);
+            PercolationStats many = new PercolationStats(24, 600, 42, 4, mode);
+            StdOut.printf("\t%s same for 1 and 4 threads %s\n", mode, sameResults(one, many) ? "OK" : "FAIL");
+        }
+
+        StdOut.println("checkpoint:");
+        for (Mode mode : Mode.values()) {
+            StdOut.printf("\t%s resumed run same as uninterrupted %s\n", mode, resumesExactly(mode) ? "OK" : "FAIL");
+        }
+
+        StdOut.println("worker cache:");
+        WorkerCache workers = new WorkerCache();
+        Worker taken = workers.take(8);
+        boolean exclusive = workers.take(8) != taken;
+        workers.release(Collections.singletonList(taken));
+        StdOut.printf("\tworker belongs to one run at a time %s\n",
+                exclusive && workers.take(16) == taken ? "OK" : "FAIL");
+        StdOut.printf("\tconcurrent runs on one pool %s\n", concurrentRunsMatch() ? "OK" : "FAIL");
+
+        StdOut.println("early stop:");
+        StdOut.printf("\tstops at first batch below target %s\n", stopsWhenPrecise(0.005) ? "OK" : "FAIL");
+    }
+
+    // n * n is over the grid limit for n = 23171 and overflows int for n = 46341
+    private static boolean rejects(int n) {
+        try {
+            new PercolationStats(n, 1, 42, 1, Mode.NEWMAN_ZIFF);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    // runs of different sizes started together on one pool and one cache, as two sweeps
+    // sharing pool threads would, give the results they give one after the other
+    private static boolean concurrentRunsMatch() {
+        ForkJoinPool pool = ParallelTrials.newPool(3);
+        ExecutorService drivers = Executors.newFixedThreadPool(2);
+        try {
+            WorkerCache workers = new WorkerCache();
+            PercolationStats small = new PercolationStats(16, 2000, 42, pool, Mode.NEWMAN_ZIFF, workers);
+            PercolationStats large = new PercolationStats(48, 300, 43, pool, Mode.NEWMAN_ZIFF, workers);
+            for (int round = 0; round < 5; round++) {
+                Future<PercolationStats> first = drivers.submit(
+                        () -> new PercolationStats(16, 2000, 42, pool, Mode.NEWMAN_ZIFF, workers));
+                Future<PercolationStats> second = drivers.submit(
+                        () -> new PercolationStats(48, 300, 43, pool, Mode.NEWMAN_ZIFF, workers));
+                if (!sameResults(first.get(), small) || !sameResults(second.get(), large)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            drivers.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    // a run with a target half-width ends after the first batch that gets below it,
+    // at the same number of trials for any number of threads
+    private static boolean stopsWhenPrecise(double halfWidth) {
+        int n = 16;
+        PercolationStats stopped = new PercolationStats(n, 42, 3, Mode.PERMUTATION, halfWidth, 0, null);
+        PercolationStats single = new PercolationStats(n, 42, 1, Mode.PERMUTATION, halfWidth, 0, null);
+        if (!sameResults(stopped, single) || stopped.trials() < MIN_TRIALS
+                || !(halfWidth(stopped) < halfWidth)) {
+            return false;
+        }
+
+        // batch boundaries of the rule, the last one must be where the run stopped
+        StoppingRule rule = new StoppingRule(Integer.MAX_VALUE, halfWidth, 0, new RunningStats());
+        long previous = 0;
+        long done = 0;
+        while (done < stopped.trials()) {
+            previous = done;
+            done += batchSize(rule, false, null, done);
+        }
+        if (done != stopped.trials()) {
+            return false;
+        }
+
+        // trial i draws from the same stream in any run, so this is the run up to the previous batch
+        return previous < MIN_TRIALS
+                || halfWidth(new PercolationStats(n, (int) previous, 42, 1, Mode.PERMUTATION)) >= halfWidth;
+    }
+
+    private static double halfWidth(PercolationStats stats) {
+        return (stats.confidenceHi() - stats.confidenceLo()) / 2;
+    }
+
+    // a run stopped after some trials and resumed from its checkpoint, on another number of threads,
+    // gives the results of an uninterrupted run; the checkpoint of another seed is rejected
+    private static boolean resumesExactly(Mode mode) {
+        try {
+            Path checkpoint = Files.createTempFile("percolation", ".bin");
+            try {
+                Files.delete(checkpoint);
+                new PercolationStats(24, 300, 42, 3, mode, checkpoint);
+                PercolationStats resumed = new PercolationStats(24, 1000, 42, 2, mode, checkpoint);
+                PercolationStats uninterrupted = new PercolationStats(24, 1000, 42, 1, mode);
+
+                boolean rejected = false;
+                try {
+                    new PercolationStats(24, 1000, 43, 2, mode, checkpoint);
+                } catch (IllegalArgumentException e) {
+                    rejected = true;
+                }
+                return sameResults(resumed, uninterrupted) && rejected;
+            } finally {
+                Files.deleteIfExists(checkpoint);
+                Files.deleteIfExists(checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // bit-identical statistics, and Newman-Ziff averages if there are any
+    private static boolean sameResults(PercolationStats a, PercolationStats b) {
+        return a.trials() == b.trials() && a.mean() == b.mean() && a.stddev() == b.stddev()
+                && Arrays.equals(a.percolation, b.percolation) && Arrays.equals(a.largestCluster, b.largestCluster)
+                && Arrays.equals(a.clusters, b.clusters);
     }
 }
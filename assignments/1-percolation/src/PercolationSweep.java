@@ -0,0 +1,308 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac PercolationSweep.java
+ *  Execution:     java PercolationSweep sweep.csv 1000 42 64 PERMUTATION 16..4096
+ *                 java PercolationSweep sweep.csv 1000 42 64 RANDOM_SITES 100 200 400 800
+ *
+ *  Runs PercolationStats for a ladder of grid sizes in one JVM
+ *  (a..b doubles n from a up to b) and extrapolates the threshold
+ *  to the infinite grid. Results are cached in a CSV file,
+ *  configurations found there are not run again.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs many (n, trials) configurations on one fork-join pool. Grids and buffers
+ * are kept between runs in a cache of this sweep, sized to the largest n so far,
+ * and the JIT is warmed up once for the whole sweep.
+ * Every computed configuration is appended to the cache file right away,
+ * so an interrupted sweep keeps what it finished.
+ */
+public class PercolationSweep implements AutoCloseable {
+
+    private static final String HEADER = "n,trials,seed,mode,mean,stddev,confidenceLo,confidenceHi,seconds";
+
+    // finite-size scaling of the mean threshold, mean(n) = pc + a * n^(-1 / nu) with nu = 4 / 3 in 2D
+    private static final double INVERSE_NU = 0.75;
+
+    private final Path cache;
+    private final ForkJoinPool pool;
+
+    // workers of finished runs, a run takes them from here
+    private final PercolationStats.WorkerCache workers = new PercolationStats.WorkerCache();
+
+    // cached results by key of the configuration
+    private final Map<String, Result> results = new HashMap<>();
+
+    /**
+     * Creates sweep with the given cache file, reading results it already has.
+     * @param cache CSV file, created on first result
+     * @param threads parallelism level of the pool
+     */
+    public PercolationSweep(Path cache, int threads) {
+        this.cache = cache;
+        if (Files.exists(cache)) {
+            readCache();
+        }
+        pool = ParallelTrials.newPool(threads);
+    }
+
+    /**
+     * Get statistics of the configuration from the cache, or runs it and adds it to the cache.
+     */
+    public Result run(int n, int trials, long seed, PercolationStats.Mode mode) {
+        String key = key(n, trials, seed, mode);
+        Result result = results.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        long start = System.nanoTime();
+        PercolationStats stats = new PercolationStats(n, trials, seed, pool, mode, workers);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        result = new Result(n, trials, seed, mode, new double[]{
+            stats.mean(), stats.stddev(), stats.confidenceLo(), stats.confidenceHi(), seconds}, false);
+        appendCache(result);
+        results.put(key, result.asCached());
+        return result;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Extrapolates mean thresholds of several sizes to the infinite grid
+     * by least squares fit of mean(n) = pc + a * n^(-3/4).
+     * @return pc
+     */
+    public static double extrapolate(List<Result> sizes) {
+        if (sizes.size() < 2) {
+            throw new IllegalArgumentException("at least two sizes expected");
+        }
+
+        double sumX = 0;
+        double sumY = 0;
+        for (Result result : sizes) {
+            sumX += Math.pow(result.n(), -INVERSE_NU);
+            sumY += result.mean();
+        }
+        double meanX = sumX / sizes.size();
+        double meanY = sumY / sizes.size();
+
+        double sxx = 0;
+        double sxy = 0;
+        for (Result result : sizes) {
+            double dx = Math.pow(result.n(), -INVERSE_NU) - meanX;
+            sxx += dx * dx;
+            sxy += dx * (result.mean() - meanY);
+        }
+        if (sxx == 0) {
+            throw new IllegalArgumentException("at least two different sizes expected");
+        }
+
+        return meanY - sxy / sxx * meanX;
+    }
+
+    private static String key(int n, int trials, long seed, PercolationStats.Mode mode) {
+        return n + "," + trials + "," + seed + "," + mode;
+    }
+
+    private void readCache() {
+        try (BufferedReader reader = Files.newBufferedReader(cache, StandardCharsets.US_ASCII)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IllegalArgumentException(cache + " is not a sweep cache");
+            }
+
+            int number = 1;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 9) {
+                    throw new IllegalArgumentException(cache + ":" + number + ": 9 fields expected");
+                }
+
+                double[] values = new double[5];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Double.parseDouble(fields[4 + i]);
+                }
+                Result result = new Result(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                        Long.parseLong(fields[2]), PercolationStats.Mode.valueOf(fields[3]), values, true);
+                results.put(key(result.n, result.trials, result.seed, result.mode), result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendCache(Result result) {
+        boolean created = !Files.exists(cache);
+        try (BufferedWriter writer = Files.newBufferedWriter(cache, StandardCharsets.US_ASCII,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (created) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            // Double.toString gives the shortest text that parses back to the same double
+            writer.write(key(result.n, result.trials, result.seed, result.mode) + "," + result.mean + ","
+                    + result.stddev + "," + result.confidenceLo + "," + result.confidenceHi + "," + result.seconds);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Statistics of one configuration.
+     */
+    public static final class Result {
+        private final int n;
+        private final int trials;
+        private final long seed;
+        private final PercolationStats.Mode mode;
+        private final double mean;
+        private final double stddev;
+        private final double confidenceLo;
+        private final double confidenceHi;
+        private final double seconds;
+        private final boolean cached;
+
+        // values are mean, stddev, confidenceLo, confidenceHi and seconds
+        private Result(int n, int trials, long seed, PercolationStats.Mode mode, double[] values, boolean cached) {
+            this.n = n;
+            this.trials = trials;
+            this.seed = seed;
+            this.mode = mode;
+            this.mean = values[0];
+            this.stddev = values[1];
+            this.confidenceLo = values[2];
+            this.confidenceHi = values[3];
+            this.seconds = values[4];
+            this.cached = cached;
+        }
+
+        private Result asCached() {
+            return new Result(n, trials, seed, mode,
+                    new double[]{mean, stddev, confidenceLo, confidenceHi, seconds}, true);
+        }
+
+        public int n() {
+            return n;
+        }
+
+        public int trials() {
+            return trials;
+        }
+
+        public long seed() {
+            return seed;
+        }
+
+        public PercolationStats.Mode mode() {
+            return mode;
+        }
+
+        public double mean() {
+            return mean;
+        }
+
+        public double stddev() {
+            return stddev;
+        }
+
+        public double confidenceLo() {
+            return confidenceLo;
+        }
+
+        public double confidenceHi() {
+            return confidenceHi;
+        }
+
+        // time the run took when it was computed
+        public double seconds() {
+            return seconds;
+        }
+
+        // true if the result was read from the cache
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    // sizes given as a list and a..b doubling ladders
+    private static List<Integer> sizes(String[] args, int from) {
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = from; i < args.length; i++) {
+            int dots = args[i].indexOf("..");
+            if (dots < 0) {
+                sizes.add(Integer.parseInt(args[i]));
+                continue;
+            }
+
+            int lo = Integer.parseInt(args[i].substring(0, dots));
+            int hi = Integer.parseInt(args[i].substring(dots + 2));
+            if (lo < 1) {
+                throw new IllegalArgumentException("sizes must be greater than 0");
+            }
+            for (long n = lo; n <= hi; n *= 2) {
+                sizes.add((int) n);
+            }
+        }
+        return sizes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            StdOut.println("Usage: java PercolationSweep cache.csv trials seed threads mode sizes...");
+            return;
+        }
+
+        Path cache = Paths.get(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]);
+        int threads = Integer.parseInt(args[3]);
+        PercolationStats.Mode mode = PercolationStats.Mode.valueOf(args[4]);
+        List<Integer> sizes = sizes(args, 5);
+
+        List<Result> results = new ArrayList<>();
+        StdOut.printf("%8s %10s %-20s %-20s %s\n", "n", "trials", "mean", "stddev", "seconds");
+        try (PercolationSweep sweep = new PercolationSweep(cache, threads)) {
+            for (int n : sizes) {
+                Result result = sweep.run(n, trials, seed, mode);
+                results.add(result);
+                StdOut.printf("%8d %10d %-20.16f %-20.16f %.3f%s\n", result.n(), result.trials(),
+                        result.mean(), result.stddev(), result.seconds(), result.isCached() ? " (cached)" : "");
+            }
+        }
+
+        if (results.size() > 1 && sizes.stream().distinct().count() > 1) {
+            StdOut.println();
+            StdOut.printf("extrapolated threshold  = %.16f\n", extrapolate(results));
+        }
+    }
+}
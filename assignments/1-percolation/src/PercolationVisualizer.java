@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac PercolationVisualizer.java
  *  Execution:    java PercolationVisualizer input.txt
- *  Dependencies: Percolation.java
+ *  Dependencies: Percolation.java PercolationInput.java
  *
  *  This program takes the name of a file as a command-line argument.
  *  From that file, it
@@ -10,15 +10,20 @@
  *    - Creates an n-by-n grid of sites (intially all blocked)
  *    - Reads in a sequence of sites (row i, column j) to open.
  *
+ *  The file may also be in the binary format of PercolationInput.
+ *
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black,
  *  with with site (1, 1) in the upper left-hand corner.
  *
+ *  Grids larger than 200-by-200 are drawn by PercolationRaster,
+ *  one pixel per site, at most 60 frames per second.
+ *
  ******************************************************************************/
 
 import java.awt.Font;
+import java.nio.file.Paths;
 
-import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 
 public class PercolationVisualizer {
@@ -26,6 +31,9 @@ public class PercolationVisualizer {
     // delay in milliseconds (controls animation speed)
     private static final int DELAY = 20;
 
+    // larger grids are drawn as a raster image
+    static final int RASTER_THRESHOLD = 200;
+
     // draw n-by-n percolation system
     public static void draw(Percolation perc, int n) {
         StdDraw.clear();
@@ -34,11 +42,12 @@ public class PercolationVisualizer {
         StdDraw.setYscale(-0.05*n, 1.05*n);   // leave a border to write text
         StdDraw.filledSquare(n/2.0, n/2.0, n/2.0);
 
-        // draw n-by-n grid
+        // draw n-by-n grid, fullness of all sites is computed in one pass
+        boolean[] full = perc.fullMask();
         int opened = 0;
         for (int row = 1; row <= n; row++) {
             for (int col = 1; col <= n; col++) {
-                if (perc.isFull(row, col)) {
+                if (full[(row - 1) * n + (col - 1)]) {
                     StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
                     opened++;
                 }
@@ -62,21 +71,33 @@ public class PercolationVisualizer {
     }
 
     public static void main(String[] args) {
-        In in = new In(args[0]);      // input file
-        int n = in.readInt();         // n-by-n percolation system
+        // sites of the input file (text or binary), loaded at once
+        PercolationInput input = PercolationInput.read(Paths.get(args[0]));
+        int n = input.n();            // n-by-n percolation system
+        int[] siteIds = input.siteIds();
+
+        if (n > RASTER_THRESHOLD) {
+            Percolation perc = new Percolation(n);
+            PercolationRaster raster = new PercolationRaster(n);
+            raster.show();
+            for (int siteId : siteIds) {
+                perc.open(siteId / n + 1, siteId % n + 1);
+                raster.frame(perc);
+            }
+            raster.update(perc);
+            return;
+        }
 
         // turn on animation mode
         StdDraw.enableDoubleBuffering();
 
-        // repeatedly read in sites to open and draw resulting system
+        // repeatedly open sites and draw resulting system
         Percolation perc = new Percolation(n);
         draw(perc, n);
         StdDraw.show();
         StdDraw.pause(DELAY);
-        while (!in.isEmpty()) {
-            int i = in.readInt();
-            int j = in.readInt();
-            perc.open(i, j);
+        for (int siteId : siteIds) {
+            perc.open(siteId / n + 1, siteId % n + 1);
             draw(perc, n);
             StdDraw.show();
             StdDraw.pause(DELAY);
@@ -0,0 +1,170 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac RunningStats.java
+ *  Execution:     java RunningStats
+ *
+ *  Online mean and standard deviation (Welford's algorithm).
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdStats;
+
+/**
+ * Accumulates sample mean, standard deviation and 95% confidence interval
+ * in O(1) memory. Methods are synchronized, so one thread may add values
+ * while others read interim results.
+ */
+public final class RunningStats {
+
+    private static final double CONFIDENCE_95 = 1.96;
+
+    private long count;
+    private double mean;
+
+    // sum of squared differences from the current mean
+    private double m2;
+
+    /**
+     * Creates empty accumulator.
+     */
+    public RunningStats() {
+    }
+
+    /**
+     * Creates accumulator with the given state.
+     * @param count number of values
+     * @param mean mean of values
+     * @param m2 sum of squared differences from the mean
+     */
+    public RunningStats(long count, double mean, double m2) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    // adds a value
+    public synchronized void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    // adds all values of the other accumulator (Chan et al. pairwise update);
+    // an empty accumulator takes the other state exactly
+    public void merge(RunningStats other) {
+        long otherCount;
+        double otherMean;
+        double otherM2;
+        synchronized (other) {
+            otherCount = other.count;
+            otherMean = other.mean;
+            otherM2 = other.m2;
+        }
+
+        synchronized (this) {
+            if (otherCount == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = otherCount;
+                mean = otherMean;
+                m2 = otherM2;
+                return;
+            }
+
+            long total = count + otherCount;
+            double delta = otherMean - mean;
+            mean += delta * otherCount / total;
+            m2 += otherM2 + delta * delta * count / total * otherCount;
+            count = total;
+        }
+    }
+
+    // number of values
+    public synchronized long count() {
+        return count;
+    }
+
+    // sample mean, NaN if empty
+    public synchronized double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // sum of squared differences from the mean
+    public synchronized double m2() {
+        return m2;
+    }
+
+    // sample standard deviation, NaN for less than two values
+    public synchronized double stddev() {
+        return Math.sqrt(m2 / (count - 1));
+    }
+
+    // half-width of 95% confidence interval of the mean
+    public synchronized double halfWidth() {
+        return CONFIDENCE_95 * stddev() / Math.sqrt(count);
+    }
+
+    // low endpoint of 95% confidence interval
+    public synchronized double confidenceLo() {
+        return mean() - halfWidth();
+    }
+
+    // high endpoint of 95% confidence interval
+    public synchronized double confidenceHi() {
+        return mean() + halfWidth();
+    }
+
+    // unit tests
+    public static void main(String[] args) {
+        double[] values = {0.59, 0.61, 0.57, 0.6, 0.62, 0.58, 0.593};
+        RunningStats stats = new RunningStats();
+        StdOut.printf("empty mean is NaN %s\n", Double.isNaN(stats.mean()) ? "OK" : "FAIL");
+        for (double value : values) {
+            stats.add(value);
+        }
+        StdOut.printf("count %s\n", stats.count() == values.length ? "OK" : "FAIL");
+        StdOut.printf("mean %s\n", Math.abs(stats.mean() - StdStats.mean(values)) < 1e-15 ? "OK" : "FAIL");
+        StdOut.printf("stddev %s\n", Math.abs(stats.stddev() - StdStats.stddev(values)) < 1e-15 ? "OK" : "FAIL");
+        double d = 1.96 * StdStats.stddev(values) / Math.sqrt(values.length);
+        StdOut.printf("confidence interval %s\n",
+                Math.abs(stats.confidenceLo() - (StdStats.mean(values) - d)) < 1e-15
+                && Math.abs(stats.confidenceHi() - (StdStats.mean(values) + d)) < 1e-15 ? "OK" : "FAIL");
+
+        RunningStats copy = new RunningStats(stats.count(), stats.mean(), stats.m2());
+        copy.add(0.6);
+        stats.add(0.6);
+        StdOut.printf("restored state %s\n", copy.stddev() == stats.stddev() ? "OK" : "FAIL");
+
+        RunningStats left = new RunningStats();
+        RunningStats right = new RunningStats();
+        for (int i = 0; i < values.length; i++) {
+            (i < 3 ? left : right).add(values[i]);
+        }
+        left.merge(right);
+        StdOut.printf("merge %s\n",
+                left.count() == values.length
+                && Math.abs(left.mean() - StdStats.mean(values)) < 1e-15
+                && Math.abs(left.stddev() - StdStats.stddev(values)) < 1e-15 ? "OK" : "FAIL");
+        copy = new RunningStats();
+        copy.merge(left);
+        StdOut.printf("merge into empty is exact %s\n",
+                copy.mean() == left.mean() && copy.m2() == left.m2() ? "OK" : "FAIL");
+
+        // large offset, naive sum of squares would lose all digits
+        stats = new RunningStats();
+        stats.add(1e9 + 4);
+        stats.add(1e9 + 7);
+        stats.add(1e9 + 13);
+        stats.add(1e9 + 16);
+        StdOut.printf("stable variance %s\n", Math.abs(stats.stddev() * stats.stddev() - 30) < 1e-6 ? "OK" : "FAIL");
+    }
+}
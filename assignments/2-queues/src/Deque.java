@@ -11,8 +11,13 @@
 
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 
 public class Deque<Item> implements Iterable<Item> {
 
@@ -58,6 +63,40 @@ public class Deque<Item> implements Iterable<Item> {
         insert(item, master.prev, master);
     }
 
+    /**
+     * Adds all items of the array at the end, in array order.
+     * Nothing is added if any of them is null.
+     */
+    public void addAll(Item[] items) {
+        append(Arrays.asList(items).iterator());
+    }
+
+    /**
+     * Adds all items of the collection at the end, in its iteration order.
+     * Nothing is added if any of them is null.
+     */
+    public void addAll(Collection<? extends Item> items) {
+        append(items.iterator());
+    }
+
+    /**
+     * Removes items from the start into the array, as many as fit.
+     * @return number of items removed
+     */
+    public int drainTo(Item[] array) {
+        int count = Math.min(size, array.length);
+        Node node = master.next;
+        for (int i = 0; i < count; i++) {
+            array[i] = node.item;
+            node = node.next;
+        }
+
+        master.next = node;
+        node.prev = master;
+        size -= count;
+        return count;
+    }
+
     public Item removeFirst() {
         return remove(master.next);
     }
@@ -81,6 +120,38 @@ public class Deque<Item> implements Iterable<Item> {
         size++;
     }
 
+    // links the items into a chain first, and the chain into the queue once all are checked
+    private void append(Iterator<? extends Item> items) {
+        Node first = null;
+        Node last = null;
+        int count = 0;
+        while (items.hasNext()) {
+            Item item = items.next();
+            if (item == null) {
+                throw new IllegalArgumentException();
+            }
+
+            Node newNode = new Node(item);
+            if (last == null) {
+                first = newNode;
+            } else {
+                last.next = newNode;
+                newNode.prev = last;
+            }
+            last = newNode;
+            count++;
+        }
+
+        if (first == null) {
+            return;
+        }
+        first.prev = master.prev;
+        master.prev.next = first;
+        last.next = master;
+        master.prev = last;
+        size += count;
+    }
+
     private Item remove(Node node) {
         if (isEmpty()) {
             throw new NoSuchElementException();
@@ -98,6 +169,15 @@ public class Deque<Item> implements Iterable<Item> {
         return new QueueIterator();
     }
 
+    /**
+     * Splits by copying batches of items into arrays, the only way to split a linked list;
+     * the batches and the rest report exact sizes.
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
     private class QueueIterator implements Iterator<Item> {
         private Node next = master.next;
 
@@ -197,6 +277,43 @@ public class Deque<Item> implements Iterable<Item> {
             test("4th next() throws NoSuchElementException", true);
         }
 
+        d = fixture("addAll");
+        d.addFirst(1);
+        d.addAll(new Integer[]{2, 3});
+        d.addAll(Arrays.asList(4, 5));
+        test("size is 5", d.size() == 5);
+        test("keeps order", d.removeFirst() == 1 && d.removeFirst() == 2 && d.removeLast() == 5);
+        try {
+            d.addAll(new Integer[]{6, null});
+            test("null throws IllegalArgumentException", false);
+        } catch (IllegalArgumentException exception) {
+            test("null throws IllegalArgumentException", d.size() == 2 && d.removeLast() == 4);
+        }
+
+        d = fixture("drainTo");
+        d.addAll(Arrays.asList(1, 2, 3, 4, 5));
+        Integer[] drained = new Integer[3];
+        test("fills the array", d.drainTo(drained) == 3 && Arrays.equals(drained, new Integer[]{1, 2, 3}));
+        test("size is 2", d.size() == 2 && d.removeFirst() == 4);
+        Integer[] rest = new Integer[3];
+        test("returns the rest", d.drainTo(rest) == 1 && rest[0] == 5 && d.isEmpty());
+        d.addLast(6);
+        test("is usable after draining", d.removeFirst() == 6 && d.isEmpty());
+
+        d = fixture("spliterator");
+        Integer[] values = new Integer[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        d.addAll(values);
+        Spliterator<Integer> spliterator = d.spliterator();
+        test("is SIZED and SUBSIZED", spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)
+                && spliterator.estimateSize() == 10000);
+        Spliterator<Integer> batch = spliterator.trySplit();
+        test("splits with exact sizes", batch != null
+                && batch.estimateSize() + spliterator.estimateSize() == 10000);
+        Object[] streamed = StreamSupport.stream(d.spliterator(), true).toArray();
+        test("parallel stream keeps order", Arrays.equals(streamed, values));
     }
 
     private static Deque<Integer> fixture(String description) {
@@ -0,0 +1,275 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac DequeBenchmark.java
+ *  Execution:     java DequeBenchmark
+ *                 java DequeBenchmark 1000 1000000
+ *  Dependencies:  Deque.java ResizingArrayDeque.java WorkStealingDeque.java
+ *
+ *  Compares throughput of the linked Deque and ResizingArrayDeque
+ *  (with java.util.ArrayDeque as a reference) for pushing and popping
+ *  at either end and for iteration, and of WorkStealingDeque against
+ *  ConcurrentLinkedDeque used as a work-stealing deque.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Main-method harness in the style of PercolationBenchmark: warm-up iterations,
+ * then the median time per operation of measured iterations. Items are boxed
+ * up front, so only the deques allocate during a benchmark.
+ */
+public final class DequeBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 11;
+
+    // results of benchmarked work are accumulated here so the JIT cannot drop it
+    private static long sink;
+
+    private DequeBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            sizes.add(Integer.parseInt(arg));
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(Arrays.asList(1000, 100000, 1000000));
+        }
+
+        StdOut.printf("%-28s %8s %12s\n", "benchmark", "n", "ns/op");
+        for (int n : sizes) {
+            Integer[] items = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                items[i] = i;
+            }
+
+            report("queue/linked", n, measure(() -> queue(new Deque<>(), items)));
+            report("queue/array", n, measure(() -> queue(new ResizingArrayDeque<>(), items)));
+            report("queue/java.util", n, measure(() -> queue(new ArrayDeque<>(), items)));
+
+            report("stack/linked", n, measure(() -> stack(new Deque<>(), items)));
+            report("stack/array", n, measure(() -> stack(new ResizingArrayDeque<>(), items)));
+            report("stack/java.util", n, measure(() -> stack(new ArrayDeque<>(), items)));
+
+            Deque<Integer> linked = new Deque<>();
+            ResizingArrayDeque<Integer> array = new ResizingArrayDeque<>();
+            ArrayDeque<Integer> reference = new ArrayDeque<>();
+            for (Integer item : items) {
+                linked.addLast(item);
+                array.addLast(item);
+                reference.addLast(item);
+            }
+            report("iterate/linked", n, measure(() -> iterate(linked)));
+            report("iterate/array", n, measure(() -> iterate(array)));
+            report("iterate/java.util", n, measure(() -> iterate(reference)));
+
+            report("owner/work-stealing", n, measure(() -> owner(new WorkStealingDeque<>(), items)));
+            report("owner/concurrent-linked", n, measure(() -> owner(new ConcurrentLinkedDeque<>(), items)));
+            report("steal/work-stealing", n, measure(() -> steal(new WorkStealingDeque<>(), items)));
+            report("steal/concurrent-linked", n, measure(() -> steal(new ConcurrentLinkedDeque<>(), items)));
+        }
+
+        if (sink == 0) {
+            StdOut.println("nothing iterated");
+        }
+    }
+
+    // addLast all items, then removeFirst all of them; returns number of operations
+    private static int queue(Deque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    private static int queue(ResizingArrayDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    private static int queue(ArrayDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    // addFirst all items, then removeFirst all of them; returns number of operations
+    private static int stack(Deque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addFirst(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    private static int stack(ResizingArrayDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addFirst(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    private static int stack(ArrayDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addFirst(item);
+        }
+        while (!d.isEmpty()) {
+            sink += d.removeFirst();
+        }
+        return 2 * items.length;
+    }
+
+    // owner thread alone, pushing and popping its tasks in stack order; returns number of operations
+    private static int owner(WorkStealingDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        Integer item;
+        while ((item = d.removeLast()) != null) {
+            sink += item;
+        }
+        return 2 * items.length;
+    }
+
+    private static int owner(ConcurrentLinkedDeque<Integer> d, Integer[] items) {
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        Integer item;
+        while ((item = d.pollLast()) != null) {
+            sink += item;
+        }
+        return 2 * items.length;
+    }
+
+    // owner pushes all items while a thief steals, then both drain the rest; returns number of items
+    private static int steal(WorkStealingDeque<Integer> d, Integer[] items) {
+        AtomicBoolean done = new AtomicBoolean();
+        long[] stolen = new long[1];
+        Thread thief = new Thread(() -> {
+            while (true) {
+                boolean finished = done.get();
+                Integer item = d.removeFirst();
+                if (item != null) {
+                    stolen[0] += item;
+                } else if (finished) {
+                    return;
+                }
+            }
+        });
+        thief.start();
+
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        Integer item;
+        while ((item = d.removeLast()) != null) {
+            sink += item;
+        }
+        done.set(true);
+        join(thief);
+        sink += stolen[0];
+        return items.length;
+    }
+
+    private static int steal(ConcurrentLinkedDeque<Integer> d, Integer[] items) {
+        AtomicBoolean done = new AtomicBoolean();
+        long[] stolen = new long[1];
+        Thread thief = new Thread(() -> {
+            while (true) {
+                boolean finished = done.get();
+                Integer item = d.pollFirst();
+                if (item != null) {
+                    stolen[0] += item;
+                } else if (finished) {
+                    return;
+                }
+            }
+        });
+        thief.start();
+
+        for (Integer item : items) {
+            d.addLast(item);
+        }
+        Integer item;
+        while ((item = d.pollLast()) != null) {
+            sink += item;
+        }
+        done.set(true);
+        join(thief);
+        sink += stolen[0];
+        return items.length;
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // returns number of items iterated
+    private static int iterate(Iterable<Integer> d) {
+        int count = 0;
+        for (Integer item : d) {
+            sink += item;
+            count++;
+        }
+        return count;
+    }
+
+    private interface Run {
+        int run();
+    }
+
+    // median time per operation in nanoseconds
+    private static double measure(Run run) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run.run();
+        }
+
+        double[] times = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            int operations = run.run();
+            times[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    private static void report(String name, int n, double nanos) {
+        StdOut.printf("%-28s %8d %12.2f\n", name, n, nanos);
+    }
+}
@@ -0,0 +1,262 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac ItemReader.java
+ *  Execution:     java ItemReader
+ *                 java ItemReader -lines big.log
+ *
+ *  Reads tokens separated by ASCII whitespace, or lines, from a file
+ *  or standard input, and skips them without creating strings.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Items of a byte channel read through one large buffer. Separators are ASCII,
+ * so items are found by scanning bytes, and only items that are returned
+ * are decoded from UTF-8; skipped ones cost a scan of their bytes only.
+ * <p>
+ * Tokens are separated by space, tab, line feed, carriage return, form feed
+ * and vertical tab. StdIn.readString also splits at the other characters
+ * of Character.isWhitespace, such as U+2003 EM SPACE; here they are part of a token.
+ */
+public class ItemReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+
+    // true to read lines, false to read tokens
+    private final boolean lines;
+
+    // bytes position .. limit - 1 of the buffer are read but not consumed
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean end;
+
+    /**
+     * Creates reader of the channel.
+     * @param lines true to read lines without their line terminator, false to read tokens
+     */
+    public ItemReader(ReadableByteChannel channel, boolean lines) {
+        this(channel, lines, BUFFER_SIZE);
+    }
+
+    // small buffers let tests cross buffer borders
+    ItemReader(ReadableByteChannel channel, boolean lines, int bufferSize) {
+        if (channel == null || bufferSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.channel = channel;
+        this.lines = lines;
+        buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Creates reader of the file.
+     */
+    public static ItemReader open(Path file, boolean lines) {
+        try {
+            return new ItemReader(FileChannel.open(file, StandardOpenOption.READ), lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates reader of standard input.
+     */
+    public static ItemReader standardInput(boolean lines) {
+        return new ItemReader(Channels.newChannel(System.in), lines);
+    }
+
+    /**
+     * Get next item.
+     * @return item, or null if there are no more items
+     */
+    public String next() {
+        if (!lines && !skipWhitespace()) {
+            return null;
+        }
+
+        int length = itemLength();
+        if (length < 0) {
+            return null;
+        }
+        // a line terminator "\r\n" is not part of the line
+        int itemBytes = lines && length > 0 && buffer[position + length - 1] == '\r' ? length - 1 : length;
+        String item = new String(buffer, position, itemBytes, StandardCharsets.UTF_8);
+        consume(length);
+        return item;
+    }
+
+    /**
+     * Skips items.
+     * @return number of items skipped, less than count only if there are no more items
+     */
+    public long skip(long count) {
+        for (long skipped = 0; skipped < count; skipped++) {
+            if (!lines && !skipWhitespace()) {
+                return skipped;
+            }
+            int length = itemLength();
+            if (length < 0) {
+                return skipped;
+            }
+            consume(length);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // moves position to the next non-whitespace byte; false if there is none
+    private boolean skipWhitespace() {
+        while (true) {
+            while (position < limit) {
+                if (!isWhitespace(buffer[position])) {
+                    return true;
+                }
+                position++;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    // length of the item at position, with all its bytes in the buffer;
+    // -1 if there are no more items
+    private int itemLength() {
+        int scanned = 0;
+        while (true) {
+            for (int i = position + scanned; i < limit; i++) {
+                byte b = buffer[i];
+                if (lines ? b == '\n' : isWhitespace(b)) {
+                    return i - position;
+                }
+            }
+            scanned = limit - position;
+            if (!fill()) {
+                // the last item ends with the input, an empty rest is not a line
+                return scanned > 0 ? scanned : -1;
+            }
+        }
+    }
+
+    // consumes the item and its separator
+    private void consume(int length) {
+        position += length;
+        if (position < limit) {
+            position++;
+        }
+    }
+
+    // reads more bytes after the unconsumed ones, which are moved to the start of the buffer;
+    // the buffer grows if it is full of one item; false at the end of input
+    private boolean fill() {
+        if (end) {
+            return false;
+        }
+
+        int unconsumed = limit - position;
+        if (unconsumed == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, position, larger, 0, unconsumed);
+            buffer = larger;
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, unconsumed);
+        }
+        position = 0;
+        limit = unconsumed;
+
+        try {
+            ByteBuffer target = ByteBuffer.wrap(buffer, limit, buffer.length - limit);
+            int read;
+            do {
+                read = channel.read(target);
+            } while (read == 0);
+            if (read < 0) {
+                end = true;
+                return false;
+            }
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ASCII whitespace only; bytes of multibyte UTF-8 characters are never separators
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0b;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 2 && "-lines".equals(args[0])) {
+            // reads all lines of the file, creating no strings
+            long start = System.nanoTime();
+            try (ItemReader reader = open(Paths.get(args[1]), true)) {
+                long count = reader.skip(Long.MAX_VALUE);
+                StdOut.printf("%d lines in %.3f s\n", count, (System.nanoTime() - start) / 1e9);
+            }
+            return;
+        }
+
+        ItemReader reader;
+
+        reader = fixture("tokens", "  to be\tor\r\nnot  to\nbe  ", false, 3);
+        test("returns tokens", "to".equals(reader.next()) && "be".equals(reader.next()));
+        test("skips tokens", reader.skip(2) == 2 && "to".equals(reader.next()));
+        test("returns last token", "be".equals(reader.next()));
+        test("returns null at the end", reader.next() == null && reader.skip(1) == 0);
+
+        reader = fixture("lines", "first\r\n\nthird line\nlast", true, 4);
+        test("returns lines", "first".equals(reader.next()) && "".equals(reader.next()));
+        test("returns line with spaces", "third line".equals(reader.next()));
+        test("returns unterminated last line", "last".equals(reader.next()) && reader.next() == null);
+
+        reader = fixture("skip to the end", "a\nb\nc\n", true, 2);
+        test("returns number of lines skipped", reader.skip(10) == 3 && reader.next() == null);
+
+        reader = fixture("utf-8", "\u00e9t\u00e9 \u043b\u0435\u0442\u043e", false, 3);
+        test("decodes items", "\u00e9t\u00e9".equals(reader.next()) && "\u043b\u0435\u0442\u043e".equals(reader.next()));
+
+        reader = fixture("non-ASCII whitespace", "a\u2003b\u00a0c d", false, 3);
+        test("is part of a token", "a\u2003b\u00a0c".equals(reader.next()) && "d".equals(reader.next()));
+    }
+
+    private static ItemReader fixture(String description, String input, boolean lines, int bufferSize) {
+        StdOut.println();
+        StdOut.println(description);
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        return new ItemReader(Channels.newChannel(new ByteArrayInputStream(bytes)), lines, bufferSize);
+    }
+
+    private static void test(String description, boolean assertion) {
+        StdOut.printf(" * %-32s %s\n", description, assertion ? "PASSED" : "FAILED");
+    }
+}
@@ -0,0 +1,210 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac LongDeque.java
+ *  Execution:     java LongDeque
+ *
+ *  Deque of long values without boxing.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Deque of longs in a circular array whose length is a power of two,
+ * so positions wrap with a mask instead of a division.
+ * The array doubles when full and halves when a quarter full.
+ */
+public class LongDeque implements Iterable<Long> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] items;
+
+    // position of the first item and number of items
+    private int head;
+    private int size;
+
+    public LongDeque() {
+        items = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * @return true if queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(long item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(long item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public long removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+
+        long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrink();
+        return item;
+    }
+
+    public long removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+
+        size--;
+        long item = items[(head + size) & (items.length - 1)];
+        shrink();
+        return item;
+    }
+
+    private void shrink() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // moves items to the start of a new array
+    private void resize(int capacity) {
+        long[] copy = new long[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    /**
+     * Iterates from first to last without boxing through {@link PrimitiveIterator.OfLong#nextLong()}.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new QueueIterator();
+    }
+
+    private class QueueIterator implements PrimitiveIterator.OfLong {
+        private int i;
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return items[(head + i++) & (items.length - 1)];
+        }
+    }
+
+    public static void main(String[] args) {
+        LongDeque d;
+
+        d = fixture("Construction");
+        test("is empty", d.isEmpty());
+        test("size is zero", d.size() == 0);
+
+        d = fixture("addFirst removeLast");
+        d.addFirst(458);
+        d.addFirst(412);
+        test("size is 2", d.size() == 2);
+        test("returns 1st added value", d.removeLast() == 458);
+        test("returns 2nd added value", d.removeLast() == 412);
+        test("is empty", d.isEmpty());
+
+        d = fixture("addLast removeFirst");
+        d.addLast(451);
+        d.addLast(452);
+        test("returns 1st added value", d.removeFirst() == 451);
+        test("returns 2nd added value", d.removeFirst() == 452);
+        test("is empty", d.isEmpty());
+
+        d = fixture("remove from empty");
+        try {
+            d.removeFirst();
+            test("throws NoSuchElementException", false);
+        } catch (NoSuchElementException exception) {
+            test("throws NoSuchElementException", true);
+        }
+
+        d = fixture("iterator (3 items)");
+        d.addLast(12);
+        d.addLast(13);
+        d.addFirst(11);
+        PrimitiveIterator.OfLong iterator = d.iterator();
+        test("1st next() returns 1st value", iterator.nextLong() == 11);
+        test("2nd next() returns 2nd value", iterator.nextLong() == 12);
+        test("3rd next() returns 3rd value", iterator.nextLong() == 13);
+        test("4th hasNext() returns false", !iterator.hasNext());
+
+        d = fixture("random operations");
+        ArrayDeque<Long> expected = new ArrayDeque<>();
+        Random random = new Random(19);
+        boolean same = true;
+        for (int i = 0; i < 100000 && same; i++) {
+            int operation = random.nextInt(i % 20000 < 10000 ? 3 : 5);
+            if (operation == 0) {
+                d.addFirst(i * 1_000_000_007L);
+                expected.addFirst(i * 1_000_000_007L);
+            } else if (operation == 1) {
+                d.addLast(i * 1_000_000_007L);
+                expected.addLast(i * 1_000_000_007L);
+            } else if (!expected.isEmpty()) {
+                same = operation % 2 == 0 ? d.removeFirst() == expected.removeFirst()
+                        : d.removeLast() == expected.removeLast();
+            }
+            same = same && d.size() == expected.size();
+        }
+        test("same as ArrayDeque", same);
+        Long[] values = expected.toArray(new Long[0]);
+        int i = 0;
+        PrimitiveIterator.OfLong all = d.iterator();
+        while (all.hasNext()) {
+            same = same && all.nextLong() == values[i++];
+        }
+        test("iterates in order", same && i == values.length);
+    }
+
+    private static LongDeque fixture(String description) {
+        StdOut.println();
+        StdOut.println(description);
+        return new LongDeque();
+    }
+
+    private static void test(String description, boolean assertion) {
+        StdOut.printf(" * %-32s %s\n", description, assertion ? "PASSED" : "FAILED");
+    }
+}
@@ -4,19 +4,62 @@
  *  Last updated:  8/17/2017
  *
  *  Compilation:   javac Permutation.java
- *  Execution:     java Permutation
+ *  Execution:     java Permutation k < input.txt
+ *                 java Permutation -reservoir k < input.txt
+ *                 java Permutation -reservoir -lines k big.log
+ *                 java Permutation -test
  *
  *  http://coursera.cs.princeton.edu/algs4/assignments/queues.html
+ *
+ *  With -reservoir, only k items are kept in memory: k tokens,
+ *  or k lines with -lines, of the given file or of standard input
+ *  are sampled while reading.
  *----------------------------------------------------------------*/
 
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.SplittableRandom;
 
 public class Permutation {
 
+    // reservoir slots allocated before k items have been read
+    private static final int MIN_RESERVOIR = 16;
+
     public static void main(String[] args) {
+        if (args.length == 1 && "-test".equals(args[0])) {
+            test();
+            return;
+        }
+
+        if (args.length >= 2 && "-reservoir".equals(args[0])) {
+            boolean lines = "-lines".equals(args[1]);
+            int next = lines ? 2 : 1;
+            if (args.length <= next || args.length > next + 2) {
+                throw new IllegalArgumentException();
+            }
+            int k = Integer.parseInt(args[next]);
+
+            try (ItemReader reader = args.length == next + 2 ? ItemReader.open(Paths.get(args[next + 1]), lines)
+                    : ItemReader.standardInput(lines)) {
+                RandomizedQueue<String> randomizedQueue = new RandomizedQueue<>();
+                // seeded from StdRandom, as RandomizedQueue is, so StdRandom.setSeed makes the sample reproducible
+                SplittableRandom random = new SplittableRandom(StdRandom.uniform(Long.MAX_VALUE));
+                randomizedQueue.enqueueAll(sample(reader, k, random));
+                for (String item : randomizedQueue) {
+                    StdOut.println(item);
+                }
+            }
+            return;
+        }
+
         if (args.length != 1) {
             throw new IllegalArgumentException();
         }
@@ -34,4 +77,115 @@ public class Permutation {
             StdOut.println(iterator.next());
         }
     }
+
+    /**
+     * Uniform sample of k items of the reader, or all of them if there are fewer,
+     * by reservoir sampling with geometric skips (Li, Algorithm L): after the first k items,
+     * the number of items to pass before the next one enters the reservoir is drawn directly,
+     * so the random generator is used O(k log(n / k)) times and skipped items are never decoded.
+     * The reservoir grows by doubling while the first k items are read, so a large k
+     * over a short input does not allocate k slots.
+     */
+    static String[] sample(ItemReader reader, int k, SplittableRandom random) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        String[] reservoir = new String[Math.min(k, MIN_RESERVOIR)];
+        for (int i = 0; i < k; i++) {
+            String item = reader.next();
+            if (item == null) {
+                return Arrays.copyOf(reservoir, i);
+            }
+            if (i == reservoir.length) {
+                reservoir = Arrays.copyOf(reservoir, (int) Math.min(k, 2L * i));
+            }
+            reservoir[i] = item;
+        }
+        if (k == 0) {
+            return reservoir;
+        }
+
+        // largest of k uniform keys in (0, 1) of the items in the reservoir
+        double w = Math.exp(Math.log(uniformPositive(random)) / k);
+        while (true) {
+            long skip = (long) Math.floor(Math.log(uniformPositive(random)) / Math.log1p(-w));
+            if (reader.skip(skip) < skip) {
+                return reservoir;
+            }
+            String item = reader.next();
+            if (item == null) {
+                return reservoir;
+            }
+            reservoir[RandomizedQueue.uniform(random, k)] = item;
+            w *= Math.exp(Math.log(uniformPositive(random)) / k);
+        }
+    }
+
+    // uniform double in (0, 1], so its logarithm is finite
+    private static double uniformPositive(SplittableRandom random) {
+        return 1.0 - random.nextDouble();
+    }
+
+    private static void test() {
+        SplittableRandom random = new SplittableRandom(23);
+
+        fixture("short input");
+        test("returns every item", Arrays.equals(sample(reader(3), 5, random), new String[]{"0", "1", "2"}));
+        test("returns every item of k", Arrays.equals(sample(reader(3), 3, random), new String[]{"0", "1", "2"}));
+        test("returns nothing for k = 0", sample(reader(3), 0, random).length == 0);
+        test("grows past the first slots", sample(reader(100), 1000, random).length == 100);
+
+        // every item is in a sample of k of n with probability k / n
+        fixture("sample 3 of 10");
+        test("is uniform", inclusionUniform(10, 3, 30000, random));
+        fixture("sample 5 of 200");
+        test("is uniform", inclusionUniform(200, 5, 40000, random));
+    }
+
+    private static boolean inclusionUniform(int n, int k, int samples, SplittableRandom random) {
+        int[] counts = new int[n];
+        boolean distinct = true;
+        for (int i = 0; i < samples; i++) {
+            String[] sample = sample(reader(n), k, random);
+            boolean[] seen = new boolean[n];
+            for (String item : sample) {
+                int index = Integer.parseInt(item);
+                distinct = distinct && !seen[index];
+                seen[index] = true;
+                counts[index]++;
+            }
+            distinct = distinct && sample.length == k;
+        }
+
+        double p = (double) k / n;
+        double expected = samples * p;
+        // 5 standard deviations of a binomial count
+        double bound = 5 * Math.sqrt(expected * (1 - p));
+        for (int count : counts) {
+            if (Math.abs(count - expected) >= bound) {
+                return false;
+            }
+        }
+        return distinct;
+    }
+
+    // tokens 0 .. n - 1, with a small buffer so skips cross buffer borders
+    private static ItemReader reader(int n) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            input.append(i).append(' ');
+        }
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        return new ItemReader(Channels.newChannel(new ByteArrayInputStream(bytes)), false, 16);
+    }
+
+    private static void fixture(String description) {
+        StdOut.println();
+        StdOut.println(description);
+    }
+
+    private static void test(String description, boolean assertion) {
+        StdOut.printf(" * %-32s %s\n", description, assertion ? "PASSED" : "FAILED");
+    }
 }
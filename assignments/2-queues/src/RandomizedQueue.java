@@ -12,18 +12,45 @@
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
+    // iterators keep swapped positions in a hash map until it has 1 / SPARSE_FRACTION of all of them
+    private static final int SPARSE_FRACTION = 64;
+
     // length of queue
     private int n = 0;
     private Item[] s;
 
-    // construct an empty randomized queue
+    // random choices of this queue only, so queues of different threads do not share a generator
+    private final SplittableRandom random;
+
+    // construct an empty randomized queue, seeded from StdRandom so StdRandom.setSeed still makes it reproducible
     public RandomizedQueue() {
+        this(new SplittableRandom(StdRandom.uniform(Long.MAX_VALUE)));
+    }
+
+    // construct an empty randomized queue with its own reproducible random sequence
+    public RandomizedQueue(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    // construct an empty randomized queue using the generator, e.g. one split off for each thread
+    public RandomizedQueue(SplittableRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException();
+        }
+
         s = (Item[]) new Object[1];
+        this.random = random;
     }
 
     // is the queue empty?
@@ -49,13 +76,53 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         s[n++] = item;
     }
 
+    // add all items of the array, growing the queue at most once
+    public void enqueueAll(Item[] items) {
+        for (Item item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        reserve(items.length);
+        System.arraycopy(items, 0, s, n, items.length);
+        n += items.length;
+    }
+
+    // add all items of the collection, growing the queue at most once
+    @SuppressWarnings("unchecked")
+    public void enqueueAll(Collection<? extends Item> items) {
+        enqueueAll((Item[]) items.toArray());
+    }
+
+    // remove random items into the array, as many as fit; returns number of items removed
+    public int drainTo(Item[] array) {
+        int count = Math.min(n, array.length);
+        for (int k = 0; k < count; k++) {
+            int i = uniform(random, n);
+            array[k] = s[i];
+            s[i] = s[--n];
+            s[n] = null;
+        }
+
+        // shrink to the capacity enqueue would have grown to for n items
+        int capacity = s.length;
+        while (capacity > 1 && n <= capacity / 4) {
+            capacity /= 2;
+        }
+        if (capacity < s.length) {
+            resize(capacity);
+        }
+        return count;
+    }
+
     // remove and return a random item
     public Item dequeue() {
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
 
-        int i = StdRandom.uniform(n);
+        int i = uniform(random, n);
         Item value = s[i];
         // move last into i
         s[i] = s[--n];
@@ -72,40 +139,64 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             throw new NoSuchElementException();
         }
 
-        return s[StdRandom.uniform(n)];
+        return s[uniform(random, n)];
     }
 
     public Iterator<Item> iterator() {
         return new RandomizedQueueIterator();
     }
 
-    private void resize(int capacity) {
-        // shift head to zero
-        Item[] copy = (Item[]) new Object[capacity];
+    // items in random order, split by halves of a shuffled copy
+    @Override
+    public Spliterator<Item> spliterator() {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        shuffle(indices);
+
+        Object[] copy = new Object[n];
         for (int i = 0; i < n; i++) {
-            copy[i] = s[i];
+            copy[i] = s[indices[i]];
         }
+        return Spliterators.spliterator(copy, 0, n, Spliterator.NONNULL);
+    }
+
+    // grows capacity by doubling until extra more items fit
+    private void reserve(int extra) {
+        int capacity = s.length;
+        while (capacity - n < extra) {
+            capacity *= 2;
+        }
+        if (capacity > s.length) {
+            resize(capacity);
+        }
+    }
+
+    private void resize(int capacity) {
+        Item[] copy = (Item[]) new Object[capacity];
+        System.arraycopy(s, 0, copy, 0, n);
         s = copy;
     }
 
+    // draws items by a Fisher-Yates shuffle of positions 0 .. count - 1, one step per next(),
+    // so taking k items costs O(k) time and memory whatever the size of the queue
     private class RandomizedQueueIterator implements Iterator<Item> {
+        private final int count;
         private int i = 0;
-        private final int[] indices;
 
-        public RandomizedQueueIterator() {
-            indices = new int[n];
-            for (i = 0; i < n; i++) {
-                indices[i] = i;
-            }
+        // positions moved by earlier steps, while few items are taken
+        private PositionMap sparse = new PositionMap();
 
-            // prepare random sequence - shuffle indices
-            shuffle(indices);
+        // all positions, shuffled to the end, once many items are taken
+        private int[] dense;
 
-            i = 0;
+        public RandomizedQueueIterator() {
+            count = n;
         }
 
         public boolean hasNext() {
-            return i < n;
+            return i < count;
         }
 
         public void remove() {
@@ -113,22 +204,143 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
 
         public Item next() {
-            if (i == n) {
+            if (i == count) {
                 throw new NoSuchElementException();
             }
-            return s[indices[i++]];
+            if (dense != null) {
+                return s[dense[i++]];
+            }
+
+            // swap position i with a random one of i .. count - 1; position i is not read again
+            int j = i + uniform(random, count - i);
+            int position = sparse.get(j);
+            sparse.put(j, sparse.get(i));
+            i++;
+            if (sparse.size() * SPARSE_FRACTION >= count) {
+                shuffleRest();
+            }
+            return s[position];
+        }
+
+        // the map is a sizeable part of an array of all positions by now, and an iteration
+        // this long is likely to go on: finish the shuffle at once, which is faster
+        // than a random step per item
+        private void shuffleRest() {
+            dense = sparse.toArray(count);
+            sparse = null;
+            for (int p = i; p < count - 1; p++) {
+                int q = p + uniform(random, count - p);
+                int old = dense[q];
+                dense[q] = dense[p];
+                dense[p] = old;
+            }
         }
     }
 
-    private static void shuffle(int[] indices) {
+    // int to int hash map with linear probing, every key not in it maps to itself
+    private static final class PositionMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size = 0;
+
+        PositionMap() {
+            Arrays.fill(keys, -1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int key) {
+            for (int slot = slot(key, keys.length); keys[slot] != -1; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return key;
+        }
+
+        void put(int key, int value) {
+            int slot = slot(key, keys.length);
+            while (keys[slot] != -1 && keys[slot] != key) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if (keys[slot] == -1) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+
+            // at most half full
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        // values of positions 0 .. count - 1
+        int[] toArray(int count) {
+            int[] positions = new int[count];
+            for (int p = 0; p < count; p++) {
+                positions[p] = p;
+            }
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != -1) {
+                    positions[keys[slot]] = values[slot];
+                }
+            }
+            return positions;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != -1) {
+                    int to = slot(oldKeys[slot], keys.length);
+                    while (keys[to] != -1) {
+                        to = (to + 1) & (keys.length - 1);
+                    }
+                    keys[to] = oldKeys[slot];
+                    values[to] = oldValues[slot];
+                }
+            }
+        }
+
+        // Fibonacci hashing, positions drawn in a row must not cluster
+        private static int slot(int key, int length) {
+            return (key * 0x9e3779b9) >>> (Integer.numberOfLeadingZeros(length) + 1);
+        }
+    }
+
+    private void shuffle(int[] indices) {
         for (int j = indices.length - 1; j > 0; j--) {
-            int k = StdRandom.uniform(j + 1);
+            int k = uniform(random, j + 1);
             int old = indices[k];
             indices[k] = indices[j];
             indices[j] = old;
         }
     }
 
+    // uniform int in [0, bound) by Lemire's multiply-shift: the high half of a 32-bit random number
+    // times bound, rejecting the few low halves that would bias it; the division computing
+    // the rejection threshold runs only with probability bound / 2^32
+    static int uniform(SplittableRandom random, int bound) {
+        long product = (random.nextInt() & 0xffffffffL) * bound;
+        long low = product & 0xffffffffL;
+        if (low < bound) {
+            // 2^32 mod bound
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (random.nextInt() & 0xffffffffL) * bound;
+                low = product & 0xffffffffL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
     public static void main(String[] args) {
         RandomizedQueue<Integer> queue;
         int v;
@@ -180,6 +392,97 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         } catch (NoSuchElementException exception) {
             test(k + ": next() throws NoSuchElementException", true);
         }
+
+        queue = fixture("enqueueAll");
+        queue.enqueue(1);
+        queue.enqueueAll(new Integer[]{2, 3, 4});
+        queue.enqueueAll(Arrays.asList(5, 6));
+        test("size is 6", queue.size() == 6);
+        try {
+            queue.enqueueAll(new Integer[]{7, null});
+            test("null throws IllegalArgumentException", false);
+        } catch (IllegalArgumentException exception) {
+            test("null throws IllegalArgumentException", queue.size() == 6);
+        }
+
+        queue = fixture("drainTo");
+        Integer[] values = new Integer[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        queue.enqueueAll(values);
+        Integer[] drained = new Integer[600];
+        test("fills the array", queue.drainTo(drained) == 600);
+        test("size is 400", queue.size() == 400);
+        Integer[] rest = new Integer[500];
+        test("returns the rest", queue.drainTo(rest) == 400 && queue.isEmpty());
+        Integer[] all = new Integer[1000];
+        System.arraycopy(drained, 0, all, 0, 600);
+        System.arraycopy(rest, 0, all, 600, 400);
+        Arrays.sort(all);
+        test("drains every item once", Arrays.equals(all, values));
+
+        queue = fixture("spliterator");
+        queue.enqueueAll(values);
+        Spliterator<Integer> spliterator = queue.spliterator();
+        test("is SIZED and SUBSIZED", spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)
+                && spliterator.estimateSize() == 1000);
+        Spliterator<Integer> half = spliterator.trySplit();
+        test("splits in halves", half != null && half.estimateSize() == 500 && spliterator.estimateSize() == 500);
+        long sum = StreamSupport.stream(queue.spliterator(), true).mapToLong(Integer::longValue).sum();
+        test("parallel stream sees every item", sum == 999 * 1000 / 2);
+
+        queue = fixture("iterator (1000 items)");
+        queue.enqueueAll(values);
+        Iterator<Integer> lazy = queue.iterator();
+        boolean[] seen = new boolean[values.length];
+        boolean once = true;
+        while (lazy.hasNext()) {
+            int item = lazy.next();
+            once = once && !seen[item];
+            seen[item] = true;
+        }
+        test("returns every item once", once && queue.size() == 1000);
+
+        // first item of 4 is every one of them with probability 1/4
+        queue = fixture("iterator first item");
+        queue.enqueueAll(new Integer[]{0, 1, 2, 3});
+        int[] firsts = new int[4];
+        for (int i = 0; i < 40000; i++) {
+            firsts[queue.iterator().next()]++;
+        }
+        boolean uniform = true;
+        for (int count : firsts) {
+            // 5 standard deviations
+            uniform = uniform && Math.abs(count - 10000) < 450;
+        }
+        test("is uniform", uniform);
+
+        StdOut.println();
+        StdOut.println("seeded queues");
+        RandomizedQueue<Integer> first = new RandomizedQueue<>(23);
+        RandomizedQueue<Integer> second = new RandomizedQueue<>(23);
+        first.enqueueAll(values);
+        second.enqueueAll(values);
+        boolean same = true;
+        while (!first.isEmpty()) {
+            same = same && first.dequeue().equals(second.dequeue());
+        }
+        test("same seed, same sequence", same);
+
+        StdOut.println();
+        StdOut.println("uniform");
+        SplittableRandom random = new SplittableRandom(23);
+        int[] counts = new int[3];
+        boolean inRange = true;
+        for (int i = 0; i < 300000; i++) {
+            counts[uniform(random, 3)]++;
+            int large = uniform(random, Integer.MAX_VALUE);
+            inRange = inRange && large >= 0 && uniform(random, 1) == 0;
+        }
+        test("stays in range", inRange);
+        // 5 standard deviations of a binomial count
+        test("is uniform", Math.abs(counts[0] - 100000) < 1300 && Math.abs(counts[1] - 100000) < 1300);
     }
 
     private static RandomizedQueue<Integer> fixture(String description) {
@@ -0,0 +1,150 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac RandomizedQueueBenchmark.java
+ *  Execution:     java RandomizedQueueBenchmark
+ *                 java RandomizedQueueBenchmark 1000 1000000
+ *  Dependencies:  RandomizedQueue.java
+ *
+ *  Compares bounded random ints from StdRandom, SplittableRandom.nextInt
+ *  and the multiply-shift method of RandomizedQueue, and measures
+ *  dequeue, iteration and taking the first 10 items of an iterator
+ *  of a RandomizedQueue that uses the latter.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Main-method harness in the style of DequeBenchmark. Bounded ints are drawn
+ * with bounds n, n - 1, ..., 1, the bounds a full shuffle or draining dequeue uses.
+ */
+public final class RandomizedQueueBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 11;
+    private static final long SEED = 23;
+
+    // results of benchmarked work are accumulated here so the JIT cannot drop it
+    private static long sink;
+
+    private RandomizedQueueBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            sizes.add(Integer.parseInt(arg));
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(Arrays.asList(1000, 100000, 1000000));
+        }
+
+        StdRandom.setSeed(SEED);
+        SplittableRandom random = new SplittableRandom(SEED);
+        StdOut.printf("%-28s %8s %12s\n", "benchmark", "n", "ns/op");
+        for (int n : sizes) {
+            Integer[] items = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                items[i] = i;
+            }
+
+            report("uniform/StdRandom", n, measure(() -> stdRandom(n)));
+            report("uniform/SplittableRandom", n, measure(() -> nextInt(random, n)));
+            report("uniform/multiply-shift", n, measure(() -> multiplyShift(random, n)));
+
+            report("dequeue", n, measure(() -> dequeue(new RandomizedQueue<>(random.split()), items)));
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>(random.split());
+            queue.enqueueAll(items);
+            report("iterate", n, measure(() -> iterate(queue)));
+            report("iterate first 10", n, measure(() -> first(queue, 10)));
+        }
+
+        if (sink == 0) {
+            StdOut.println("nothing drawn");
+        }
+    }
+
+    // returns number of ints drawn
+    private static int stdRandom(int n) {
+        for (int bound = n; bound > 0; bound--) {
+            sink += StdRandom.uniform(bound);
+        }
+        return n;
+    }
+
+    private static int nextInt(SplittableRandom random, int n) {
+        for (int bound = n; bound > 0; bound--) {
+            sink += random.nextInt(bound);
+        }
+        return n;
+    }
+
+    private static int multiplyShift(SplittableRandom random, int n) {
+        for (int bound = n; bound > 0; bound--) {
+            sink += RandomizedQueue.uniform(random, bound);
+        }
+        return n;
+    }
+
+    // enqueues all items, then dequeues all of them; returns number of items dequeued
+    private static int dequeue(RandomizedQueue<Integer> queue, Integer[] items) {
+        queue.enqueueAll(items);
+        while (!queue.isEmpty()) {
+            sink += queue.dequeue();
+        }
+        return items.length;
+    }
+
+    // returns number of items iterated
+    private static int iterate(RandomizedQueue<Integer> queue) {
+        int count = 0;
+        for (Integer item : queue) {
+            sink += item;
+            count++;
+        }
+        return count;
+    }
+
+    // takes k items of a new iterator; returns number of items taken
+    private static int first(RandomizedQueue<Integer> queue, int k) {
+        Iterator<Integer> iterator = queue.iterator();
+        for (int i = 0; i < k; i++) {
+            sink += iterator.next();
+        }
+        return k;
+    }
+
+    private interface Run {
+        int run();
+    }
+
+    // median time per operation in nanoseconds
+    private static double measure(Run run) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run.run();
+        }
+
+        double[] times = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            int operations = run.run();
+            times[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    private static void report(String name, int n, double nanos) {
+        StdOut.printf("%-28s %8d %12.2f\n", name, n, nanos);
+    }
+}
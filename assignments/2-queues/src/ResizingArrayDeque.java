@@ -0,0 +1,260 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac ResizingArrayDeque.java
+ *  Execution:     java ResizingArrayDeque
+ *
+ *  Deque backed by a resizing circular array.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Same API as Deque, with items in a circular array whose length is a power of two,
+ * so positions wrap with a mask instead of a division. No node is allocated per item;
+ * the array doubles when full and halves when a quarter full, and vacated slots
+ * are cleared, so removed items are not kept reachable.
+ */
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items;
+
+    // position of the first item and number of items
+    private int head;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ResizingArrayDeque() {
+        items = (Item[]) new Object[MIN_CAPACITY];
+    }
+
+    /**
+     * @return true if queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+
+        Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrink();
+        return item;
+    }
+
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+
+        size--;
+        int last = (head + size) & (items.length - 1);
+        Item item = items[last];
+        items[last] = null;
+        shrink();
+        return item;
+    }
+
+    private void shrink() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // moves items to the start of a new array
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        Item[] copy = (Item[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    public Iterator<Item> iterator() {
+        return new QueueIterator();
+    }
+
+    private class QueueIterator implements Iterator<Item> {
+        private int i;
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return items[(head + i++) & (items.length - 1)];
+        }
+    }
+
+    public static void main(String[] args) {
+        ResizingArrayDeque<Integer> d;
+        int v;
+
+        d = fixture("Construction");
+        test("is empty", d.isEmpty());
+        test("size is zero", d.size() == 0);
+
+        d = fixture("addFirst 2nd call");
+        d.addFirst(412);
+        d.addFirst(459);
+        test("is not empty", !d.isEmpty());
+        test("size is 2", d.size() == 2);
+
+        d = fixture("addLast 2nd call");
+        d.addLast(412);
+        d.addLast(459);
+        test("is not empty", !d.isEmpty());
+        test("size is 2", d.size() == 2);
+
+        d = fixture("addFirst removeLast");
+        d.addFirst(458);
+        v = d.removeLast();
+        test("returns added value", v == 458);
+        test("is empty", d.isEmpty());
+        test("size is zero", d.size() == 0);
+
+        d = fixture("addLast removeFirst");
+        d.addLast(451);
+        v = d.removeFirst();
+        test("returns added value", v == 451);
+        test("is empty", d.isEmpty());
+        test("size is zero", d.size() == 0);
+
+        d = fixture("null item");
+        try {
+            d.addFirst(null);
+            test("throws IllegalArgumentException", false);
+        } catch (IllegalArgumentException exception) {
+            test("throws IllegalArgumentException", true);
+        }
+
+        d = fixture("remove from empty");
+        try {
+            d.removeLast();
+            test("throws NoSuchElementException", false);
+        } catch (NoSuchElementException exception) {
+            test("throws NoSuchElementException", true);
+        }
+
+        d = fixture("vacated slots");
+        d.addLast(1);
+        d.addLast(2);
+        d.addFirst(0);
+        d.removeFirst();
+        d.removeLast();
+        int occupied = 0;
+        // read through a wildcard, the array is an Object[] at run time
+        for (Object item : ((ResizingArrayDeque<?>) d).items) {
+            occupied += item != null ? 1 : 0;
+        }
+        test("removed items are cleared", occupied == 1);
+
+        d = fixture("iterator (3 items)");
+        d.addLast(12);
+        d.addLast(13);
+        d.addFirst(11);
+
+        Iterator<Integer> iterator = d.iterator();
+        test("1st next() returns 1st value", iterator.next() == 11);
+        test("2nd next() returns 2nd value", iterator.next() == 12);
+        test("3rd next() returns 3rd value", iterator.next() == 13);
+        test("4th hasNext() returns false", !iterator.hasNext());
+        try {
+            iterator.next();
+            test("4th next() throws NoSuchElementException", false);
+        } catch (NoSuchElementException exception) {
+            test("4th next() throws NoSuchElementException", true);
+        }
+
+        d = fixture("random operations");
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        Random random = new Random(20);
+        boolean same = true;
+        for (int i = 0; i < 100000 && same; i++) {
+            int operation = random.nextInt(i % 20000 < 10000 ? 3 : 6);
+            if (operation == 0) {
+                d.addFirst(i);
+                expected.addFirst(i);
+            } else if (operation == 1) {
+                d.addLast(i);
+                expected.addLast(i);
+            } else if (!expected.isEmpty()) {
+                same = operation % 2 == 0 ? d.removeFirst().equals(expected.removeFirst())
+                        : d.removeLast().equals(expected.removeLast());
+            }
+            same = same && d.size() == expected.size();
+        }
+        test("same as ArrayDeque", same);
+
+        Iterator<Integer> all = d.iterator();
+        for (Integer item : expected) {
+            same = same && item.equals(all.next());
+        }
+        test("iterates in order", same && !all.hasNext());
+    }
+
+    private static ResizingArrayDeque<Integer> fixture(String description) {
+        StdOut.println();
+        StdOut.println(description);
+        return new ResizingArrayDeque<>();
+    }
+
+    private static void test(String description, boolean assertion) {
+        StdOut.printf(" * %-32s %s\n", description, assertion ? "PASSED" : "FAILED");
+    }
+}
@@ -0,0 +1,364 @@
+/*----------------------------------------------------------------
+ *  Author:        Andrey Braynin
+ *  Written:       10/18/2026
+ *  Last updated:  10/18/2026
+ *
+ *  Compilation:   javac WorkStealingDeque.java
+ *  Execution:     java WorkStealingDeque
+ *                 java WorkStealingDeque 1000000
+ *  Dependencies:  IntDeque.java
+ *
+ *  Lock-free work-stealing deque (Chase and Lev, "Dynamic circular
+ *  work-stealing deque", SPAA 2005) for one owner thread and any
+ *  number of thieves.
+ *----------------------------------------------------------------*/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Deque whose owner thread adds and removes items at the last end,
+ * like a stack of its own tasks, while other threads steal the oldest item
+ * from the first end. Items are in a circular array indexed by two ever
+ * increasing counters: bottom, written by the owner only, and top, which thieves
+ * and the owner move by CAS. The owner takes the last item without CAS
+ * unless it is the only one left, so a worker popping its own tasks
+ * does not contend with thieves.
+ * <p>
+ * The array doubles when full and never shrinks, as in the paper.
+ * Slots taken by the owner are cleared right away. Thieves do not clear
+ * the slots they steal: a thief that has moved top may be descheduled,
+ * and by the time it writes the slot the owner may have reused it, even
+ * for the same item, so a late clear, even by CAS on the element, could
+ * lose a live item. ForkJoinPool CASes the slot because its tasks are
+ * never pushed twice; items here may be. Instead the owner clears the slots
+ * below top on its next add or remove, so a stolen item stays reachable
+ * from the deque until then, and for as long as the owner is idle.
+ * <p>
+ * Unlike Deque, the remove methods return null when the deque is empty,
+ * because with concurrent thieves a check with isEmpty() before removing
+ * would not mean anything.
+ */
+public class WorkStealingDeque<Item> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    // the updater of a generic class is created for its raw type
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<WorkStealingDeque> TOP =
+            AtomicLongFieldUpdater.newUpdater(WorkStealingDeque.class, "top");
+
+    // replaced by the owner on growth; a thief may still read an old array,
+    // which holds the same items at the positions it can steal
+    private volatile Object[] items;
+
+    // position of the first item, moves up by CAS only
+    private volatile long top;
+
+    // position after the last item, written by the owner only
+    private volatile long bottom;
+
+    // stolen slots below this position are cleared, owner only
+    private long cleared;
+
+    // yield inside the race windows, so the tests hit them even on a single core
+    private final boolean widenRaces;
+
+    public WorkStealingDeque() {
+        this(false);
+    }
+
+    WorkStealingDeque(boolean widenRaces) {
+        items = new Object[MIN_CAPACITY];
+        this.widenRaces = widenRaces;
+    }
+
+    /**
+     * @return true if deque was empty at the moment of the call
+     */
+    public boolean isEmpty() {
+        return bottom <= top;
+    }
+
+    /**
+     * Get number of items, a snapshot that may be stale by the time it is returned.
+     */
+    public int size() {
+        long t = top;
+        long b = bottom;
+        return (int) Math.max(0, b - t);
+    }
+
+    /**
+     * Adds item at the last end. Owner thread only.
+     */
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        long b = bottom;
+        long t = top;
+        Object[] a = items;
+        if (b - t >= a.length) {
+            a = grow(a, t, b);
+        }
+        if (t > cleared) {
+            clearStolen(a, t, b);
+        }
+        a[(int) b & (a.length - 1)] = item;
+        // volatile write publishes the item to thieves
+        bottom = b + 1;
+    }
+
+    /**
+     * Removes item at the last end, the most recently added one. Owner thread only.
+     * @return item, or null if deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Item removeLast() {
+        long b = bottom - 1;
+        Object[] a = items;
+        // claims the last slot before reading top; both are volatile, so thieves
+        // that read the old bottom have already moved top
+        bottom = b;
+        window();
+        long t = top;
+        if (t > cleared) {
+            clearStolen(a, t, b + 1);
+        }
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+
+        int slot = (int) b & (a.length - 1);
+        Item item = (Item) a[slot];
+        if (t < b) {
+            a[slot] = null;
+            return item;
+        }
+
+        // only item left, thieves may be taking it too
+        window();
+        boolean won = TOP.compareAndSet(this, t, t + 1);
+        bottom = b + 1;
+        if (!won) {
+            return null;
+        }
+        a[slot] = null;
+        return item;
+    }
+
+    /**
+     * Removes item at the first end, the oldest one. Any thread.
+     * Retries while other threads take the first item at the same time.
+     * @return item, or null if deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public Item removeFirst() {
+        while (true) {
+            long t = top;
+            long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+
+            Object[] a = items;
+            Item item = (Item) a[(int) t & (a.length - 1)];
+            window();
+            if (TOP.compareAndSet(this, t, t + 1)) {
+                return item;
+            }
+        }
+    }
+
+    // lets other threads run between a read and the write or CAS that depends on it;
+    // a random number of yields varies which thread gets through its window first
+    private void window() {
+        if (widenRaces) {
+            for (int i = ThreadLocalRandom.current().nextInt(3); i > 0; i--) {
+                Thread.yield();
+            }
+        }
+    }
+
+    // clears slots of positions below t, the owner's read of top, which thieves took;
+    // positions before b - length share their slots with ones the owner has written since.
+    // A thief that reads a cleared slot has read a stale top, so its CAS fails
+    private void clearStolen(Object[] a, long t, long b) {
+        for (long i = Math.max(cleared, b - a.length); i < t; i++) {
+            a[(int) i & (a.length - 1)] = null;
+        }
+        cleared = t;
+    }
+
+    // copies items t .. b - 1 to an array twice as long, at the same positions modulo its length
+    private Object[] grow(Object[] a, long t, long b) {
+        Object[] copy = new Object[a.length * 2];
+        for (long i = t; i < b; i++) {
+            copy[(int) i & (copy.length - 1)] = a[(int) i & (a.length - 1)];
+        }
+        items = copy;
+        return copy;
+    }
+
+    // stress tests: the owner adds and removes, thieves steal; every item must be taken exactly once,
+    // the owner must always get its newest item and every thief must get items in the order they were added;
+    // the deques under race yield inside their race windows, so that taking the last item without CAS,
+    // reading top before claiming the last slot or stealing without CAS fail the tests even on one core
+    public static void main(String[] args) throws InterruptedException {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+
+        WorkStealingDeque<Integer> d = new WorkStealingDeque<>();
+        StdOut.printf("empty deque has nothing to take %s\n",
+                d.isEmpty() && d.removeLast() == null && d.removeFirst() == null ? "OK" : "FAIL");
+        for (int i = 0; i < 20; i++) {
+            d.addLast(i);
+        }
+        boolean ordered = d.size() == 20 && d.removeFirst() == 0 && d.removeLast() == 19 && d.removeFirst() == 1;
+        StdOut.printf("first end is oldest, last end is newest %s\n", ordered ? "OK" : "FAIL");
+        d.removeFirst();
+        d.removeFirst();
+        d.addLast(20);
+        StdOut.printf("owner clears stolen slots %s\n", occupied(d) == d.size() ? "OK" : "FAIL");
+
+        for (int thieves = 1; thieves <= 3; thieves++) {
+            StdOut.printf("%d thieves, items taken exactly once and in order %s\n", thieves,
+                    stress(items, thieves, 21 + thieves) ? "OK" : "FAIL");
+        }
+        StdOut.printf("owner and thief race for the last item %s\n", lastItemRace(20000) ? "OK" : "FAIL");
+    }
+
+    // number of slots that still reference an item
+    private static int occupied(WorkStealingDeque<?> d) {
+        int count = 0;
+        for (Object item : d.items) {
+            if (item != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean stress(int count, int thieves, long seed) throws InterruptedException {
+        WorkStealingDeque<Integer> d = new WorkStealingDeque<>(true);
+        AtomicIntegerArray taken = new AtomicIntegerArray(count);
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger stolen = new AtomicInteger();
+
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                int last = -1;
+                while (true) {
+                    // done is read before trying, so nothing added before it was set is missed
+                    boolean finished = done.get();
+                    Integer item = d.removeFirst();
+                    if (item == null) {
+                        if (finished) {
+                            return;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    if (item <= last) {
+                        consistent.set(false);
+                    }
+                    last = item;
+                    taken.incrementAndGet(item);
+                    stolen.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+
+        // items the owner added and did not remove itself, oldest first; some of them are stolen
+        IntDeque own = new IntDeque();
+        SplittableRandom random = new SplittableRandom(seed);
+        int next = 0;
+        while (next < count || !own.isEmpty()) {
+            if (next < count && (own.isEmpty() || random.nextInt(3) != 0)) {
+                d.addLast(next);
+                own.addLast(next++);
+                continue;
+            }
+
+            Integer item = d.removeLast();
+            if (item == null) {
+                // everything the owner still had was stolen
+                own = new IntDeque();
+                continue;
+            }
+            // thieves take the oldest items only, so the newest one is still there
+            if (item != own.removeLast()) {
+                consistent.set(false);
+            }
+            taken.incrementAndGet(item);
+        }
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // a steal that finished after the owner's last remove left its slot for the next one to clear
+        boolean drained = d.removeLast() == null;
+
+        for (int i = 0; i < count; i++) {
+            if (taken.get(i) != 1) {
+                return false;
+            }
+        }
+        // without any steal the test would prove nothing
+        return consistent.get() && drained && d.isEmpty() && occupied(d) == 0 && stolen.get() > 0;
+    }
+
+    // with one item left, owner and thief start taking it together; exactly one of them gets it
+    private static boolean lastItemRace(int rounds) throws InterruptedException {
+        WorkStealingDeque<Integer> d = new WorkStealingDeque<>(true);
+        AtomicIntegerArray taken = new AtomicIntegerArray(rounds);
+        // last round started by the owner and last round finished by the thief
+        AtomicInteger round = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+
+        Thread thief = new Thread(() -> {
+            for (int r = 1; r <= rounds; r++) {
+                while (round.get() < r) {
+                    Thread.yield();
+                }
+                Integer item = d.removeFirst();
+                if (item != null) {
+                    taken.incrementAndGet(item);
+                }
+                finished.set(r);
+            }
+        });
+        thief.start();
+
+        for (int r = 1; r <= rounds; r++) {
+            d.addLast(r - 1);
+            round.set(r);
+            Integer item = d.removeLast();
+            if (item != null) {
+                taken.incrementAndGet(item);
+            }
+            while (finished.get() < r) {
+                Thread.yield();
+            }
+        }
+        thief.join();
+
+        for (int i = 0; i < rounds; i++) {
+            if (taken.get(i) != 1) {
+                return false;
+            }
+        }
+        return d.isEmpty();
+    }
+}